@@ -0,0 +1,95 @@
+package com.securebank.benchmarks;
+
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.service.FraudGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edge inserts and cycle checks on {@link FraudGraph} over synthetic graphs.
+ *
+ * RANDOM spreads edges evenly (about 10 per sender), CHAIN links users into long
+ * paths, the worst case for the hop-bounded search, and HUB routes most money
+ * through a few very high-degree accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudGraphBenchmark {
+
+    public enum Shape { RANDOM, CHAIN, HUB }
+
+    private static final int PROBES = 1 << 16;
+    private static final int HUBS = 100;
+
+    @Param({"10000", "1000000"})
+    private int edges;
+
+    @Param({"RANDOM", "CHAIN", "HUB"})
+    private Shape shape;
+
+    private FraudGraph graph;
+    private Transaction[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = new FraudGraph();
+        SplittableRandom random = new SplittableRandom(42);
+        int users = Math.max(HUBS * 2, edges / 10);
+        for (int i = 0; i < edges; i++) {
+            long[] edge = edge(random, users, i);
+            graph.addTransactionEdge(transaction(edge[0], edge[1]));
+        }
+        // Fresh edges drawn from the same distribution, reused round-robin
+        probes = new Transaction[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            long[] edge = edge(random, users, random.nextInt(edges));
+            probes[i] = transaction(edge[0], edge[1]);
+        }
+    }
+
+    @Benchmark
+    public void addTransactionEdge() {
+        graph.addTransactionEdge(probes[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean closesCycle() {
+        Transaction tx = probes[next++ & (PROBES - 1)];
+        return graph.closesCycle(tx.getSender().getId(), tx.getReceiver().getId());
+    }
+
+    @Benchmark
+    public boolean hasSuspiciousCycle() {
+        return graph.hasSuspiciousCycle(probes[next++ & (PROBES - 1)].getSender().getId());
+    }
+
+    private long[] edge(SplittableRandom random, int users, int i) {
+        return switch (shape) {
+            case RANDOM -> distinctPair(random.nextInt(users) + 1, random.nextInt(users) + 1);
+            case CHAIN -> new long[] {i % users + 1, (i + 1) % users + 1};
+            case HUB -> random.nextBoolean()
+                    ? distinctPair(random.nextInt(users) + 1, random.nextInt(HUBS) + 1)
+                    : distinctPair(random.nextInt(HUBS) + 1, random.nextInt(users) + 1);
+        };
+    }
+
+    private static long[] distinctPair(long sender, long receiver) {
+        return new long[] {sender, sender == receiver ? receiver + 1 : receiver};
+    }
+
+    static Transaction transaction(long senderId, long receiverId) {
+        User sender = new User();
+        sender.setId(senderId);
+        User receiver = new User();
+        receiver.setId(receiverId);
+        return new Transaction(sender, receiver, 100.0);
+    }
+}
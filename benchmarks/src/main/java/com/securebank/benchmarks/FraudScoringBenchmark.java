@@ -0,0 +1,118 @@
+package com.securebank.benchmarks;
+
+import com.securebank.model.Transaction;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.service.FraudGraph;
+import com.securebank.service.FraudScoringService;
+import com.securebank.service.SenderActivityTracker;
+import com.securebank.service.rules.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * {@link FraudScoringService#calculateFraudScore} with the default rule set, wired by
+ * hand against a repository stub that returns no history, so only in-process
+ * scoring cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudScoringBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000"})
+    private int senders;
+
+    private FraudScoringService scoringService;
+    private Transaction[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FraudGraph fraudGraph = new FraudGraph();
+
+        SenderActivityTracker tracker = new SenderActivityTracker();
+        setField(tracker, "transactionRepository", stubRepository());
+        invokeMethod(tracker, "init");
+
+        AmountRule amountRule = new AmountRule();
+        setField(amountRule, "highThreshold", 100_000.0);
+        setField(amountRule, "mediumThreshold", 50_000.0);
+        CycleRule cycleRule = new CycleRule();
+        setField(cycleRule, "fraudGraph", fraudGraph);
+        setField(cycleRule, "cycleScore", 3);
+        VelocityRule velocityRule = new VelocityRule();
+        setField(velocityRule, "senderActivityTracker", tracker);
+        setField(velocityRule, "highGap", Duration.ofMinutes(1));
+        setField(velocityRule, "mediumGap", Duration.ofMinutes(5));
+        setField(velocityRule, "burstCount", 5);
+        setField(velocityRule, "burstWindow", Duration.ofMinutes(10));
+        OutDegreeRule outDegreeRule = new OutDegreeRule();
+        setField(outDegreeRule, "fraudGraph", fraudGraph);
+        setField(outDegreeRule, "highThreshold", 10);
+        setField(outDegreeRule, "mediumThreshold", 5);
+
+        FraudRulePipeline pipeline = new FraudRulePipeline();
+        setField(pipeline, "rules", List.<FraudRule>of(amountRule, cycleRule, velocityRule, outDegreeRule));
+        setField(pipeline, "meterRegistry", new SimpleMeterRegistry());
+        setField(pipeline, "environment", new StandardEnvironment());
+        setField(pipeline, "parallelMinCost", 50);
+        invokeMethod(pipeline, "init");
+
+        scoringService = new FraudScoringService();
+        setField(scoringService, "fraudGraph", fraudGraph);
+        setField(scoringService, "senderActivityTracker", tracker);
+        setField(scoringService, "fraudRulePipeline", pipeline);
+        setField(scoringService, "meterRegistry", new SimpleMeterRegistry());
+        invokeMethod(scoringService, "initMetrics");
+
+        SplittableRandom random = new SplittableRandom(42);
+        probes = new Transaction[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            long sender = random.nextInt(senders) + 1;
+            long receiver = sender + 1 + random.nextInt(senders * 10);
+            probes[i] = FraudGraphBenchmark.transaction(sender, receiver);
+        }
+        // Score and record every probe once so the graph and activity rings are warm
+        for (Transaction probe : probes) {
+            scoringService.calculateFraudScore(probe);
+            scoringService.recordAccepted(List.of(probe));
+        }
+    }
+
+    @Benchmark
+    public int calculateFraudScore() {
+        return scoringService.calculateFraudScore(probes[next++ & (PROBES - 1)]);
+    }
+
+    // Every query finds nothing; only the methods scoring calls are ever reached
+    private static TransactionRepository stubRepository() {
+        return (TransactionRepository) Proxy.newProxyInstance(
+                TransactionRepository.class.getClassLoader(),
+                new Class<?>[] {TransactionRepository.class},
+                (proxy, method, args) -> {
+                    if (List.class.isAssignableFrom(method.getReturnType())) {
+                        return Collections.emptyList();
+                    }
+                    if (method.getReturnType() == long.class) {
+                        return 0L;
+                    }
+                    return null;
+                });
+    }
+}
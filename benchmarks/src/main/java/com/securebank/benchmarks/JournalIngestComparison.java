@@ -0,0 +1,230 @@
+package com.securebank.benchmarks;
+
+import com.securebank.journal.JournalRecord;
+import com.securebank.journal.SegmentedJournal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Ingest rate and acknowledgement latency of single transfers, saved directly (a database
+ * transaction per transfer) versus appended to {@link SegmentedJournal} and drained to
+ * the database in batches, as {@code transactions.journal.enabled=true} does.
+ *
+ * Not a JMH benchmark, like {@link ThreadModelComparison}: it needs many clients in
+ * flight. The journal is the real one, on the local disk. The database is simulated: a
+ * statement is a round trip of {@code rttMicros} holding one of {@code connections}
+ * pooled connections, and a commit is a real fsync of a separate log file. A direct save
+ * costs {@value #STATEMENTS_PER_TRANSFER} statements and a commit (the insert, two
+ * summaries, the counterparty check and the ledger); a journal batch costs the same
+ * statements sent as JDBC batches, {@value #ROW_MICROS} µs per row, and one commit.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar com.securebank.benchmarks.JournalIngestComparison
+ *        [clients=64,256] [requestsPerClient=200] [rttMicros=250] [connections=10]
+ *        [paths=DIRECT,JOURNAL] [directory=target/journal-benchmark]
+ */
+public class JournalIngestComparison {
+
+    enum Ingest { DIRECT, JOURNAL }
+
+    private static final int STATEMENTS_PER_TRANSFER = 8;
+    private static final int ROW_MICROS = 5;
+    private static final int FLUSH_BATCH_SIZE = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int[] clientCounts = Arrays.stream((args.length > 0 ? args[0] : "64,256").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long rttMicros = args.length > 2 ? Long.parseLong(args[2]) : 250;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        List<Ingest> paths = Arrays.stream((args.length > 4 ? args[4] : "DIRECT,JOURNAL").split(","))
+                .map(Ingest::valueOf).toList();
+        Path directory = Path.of(args.length > 5 ? args[5] : "target/journal-benchmark");
+
+        System.out.printf("%d requests per client, %d us round trips, %d connections, %d cores, journal in %s%n",
+                requestsPerClient, rttMicros, connections, Runtime.getRuntime().availableProcessors(),
+                directory.toAbsolutePath());
+        System.out.printf("%-8s %8s %10s %10s %10s %12s%n", "path", "clients", "acks/s", "p50 ms", "p99 ms", "stored/s");
+
+        // Warm-up round, not reported
+        for (Ingest path : paths) {
+            run(path, 16, 50, rttMicros, connections, directory);
+        }
+        for (int clients : clientCounts) {
+            for (Ingest path : paths) {
+                Result result = run(path, clients, requestsPerClient, rttMicros, connections, directory);
+                System.out.printf("%-8s %8d %10.0f %10.2f %10.2f %12.0f%n", path, clients, result.ackRate(),
+                        result.percentileMillis(50), result.percentileMillis(99), result.storeRate());
+            }
+        }
+    }
+
+    // Acknowledgement latencies; acks measured to the last ack, stores to the last row in the database
+    record Result(long[] latenciesNanos, long ackWallNanos, long storeWallNanos) {
+
+        double ackRate() {
+            return latenciesNanos.length / (ackWallNanos / 1e9);
+        }
+
+        double storeRate() {
+            return latenciesNanos.length / (storeWallNanos / 1e9);
+        }
+
+        double percentileMillis(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    static Result run(Ingest path, int clients, int requestsPerClient, long rttMicros, int connections,
+                      Path directory) throws Exception {
+        deleteRecursively(directory);
+        Files.createDirectories(directory);
+        Database database = new Database(directory.resolve("database.log"), connections, rttMicros);
+        try {
+            return path == Ingest.DIRECT
+                    ? runDirect(database, clients, requestsPerClient)
+                    : runJournal(database, clients, requestsPerClient, directory.resolve("journal"));
+        } finally {
+            database.close();
+        }
+    }
+
+    static Result runDirect(Database database, int clients, int requestsPerClient) throws Exception {
+        long[] latencies = new long[clients * requestsPerClient];
+        long start = System.nanoTime();
+        clients(clients, requestsPerClient, latencies, (id) -> database.commit(STATEMENTS_PER_TRANSFER, 0));
+        long wall = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(latencies, wall, wall);
+    }
+
+    static Result runJournal(Database database, int clients, int requestsPerClient, Path directory) throws Exception {
+        long total = (long) clients * requestsPerClient;
+        long[] latencies = new long[(int) total];
+        try (SegmentedJournal journal = new SegmentedJournal(directory, 64L << 20, (records, nanos) -> { })) {
+            // The flusher: waits for a full batch or 20 ms, then writes it in one database transaction
+            Thread flusher = Thread.ofPlatform().name("journal-flusher").start(() -> {
+                long flushed = 0;
+                try {
+                    while (flushed < total) {
+                        journal.awaitDurable(flushed + FLUSH_BATCH_SIZE - 1, Duration.ofMillis(20));
+                        List<JournalRecord> batch = journal.read(flushed, FLUSH_BATCH_SIZE);
+                        if (!batch.isEmpty()) {
+                            database.commit(STATEMENTS_PER_TRANSFER, batch.size());
+                            flushed += batch.size();
+                            journal.release(flushed);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException("Flusher stopped after " + flushed + " records", e);
+                }
+            });
+
+            long start = System.nanoTime();
+            clients(clients, requestsPerClient, latencies, (id) -> {
+                long sequence = journal.append(new JournalRecord(id, id % 1000, 1000 + id % 1000, 10.0,
+                        LocalDateTime.now(), 1));
+                if (!journal.awaitDurable(sequence, Duration.ofSeconds(30))) {
+                    throw new IllegalStateException("Journal sync timed out");
+                }
+            });
+            long ackWall = System.nanoTime() - start;
+            flusher.join();
+            long storeWall = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            return new Result(latencies, ackWall, storeWall);
+        }
+    }
+
+    interface Request {
+        void send(long id) throws Exception;
+    }
+
+    // Each client sends its requests back to back on its own thread; fills latencies in completion order
+    static void clients(int clients, int requestsPerClient, long[] latencies, Request request) throws Exception {
+        AtomicLong next = new AtomicLong();
+        AtomicLong ids = new AtomicLong();
+        try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+            List<Future<?>> futures = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        long sent = System.nanoTime();
+                        request.send(ids.incrementAndGet());
+                        latencies[(int) next.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    /**
+     * A database reduced to its costs: statements are round trips holding a pooled
+     * connection, and a commit appends to a log and fsyncs it.
+     */
+    static final class Database implements AutoCloseable {
+
+        private final FileChannel log;
+        private final Semaphore pool;
+        private final long rttNanos;
+        private final AtomicLong logPosition = new AtomicLong();
+
+        Database(Path logFile, int connections, long rttMicros) throws IOException {
+            this.log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.pool = new Semaphore(connections, true);
+            this.rttNanos = rttMicros * 1000;
+        }
+
+        // One transaction: the statements (batched over rows when rows > 0), then a commit
+        void commit(int statements, int rows) throws Exception {
+            pool.acquire();
+            try {
+                LockSupport.parkNanos(statements * rttNanos + rows * ROW_MICROS * 1000L);
+                ByteBuffer redo = ByteBuffer.allocate(Math.max(1, rows) * 64);
+                log.write(redo, logPosition.getAndAdd(redo.capacity()));
+                log.force(false);
+                LockSupport.parkNanos(rttNanos);
+            } finally {
+                pool.release();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.close();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
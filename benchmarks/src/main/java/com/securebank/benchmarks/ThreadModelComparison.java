@@ -0,0 +1,145 @@
+package com.securebank.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and latency of one request model under many concurrent clients, on platform
+ * request threads (Tomcat's default pool of 200) versus a virtual thread per request.
+ *
+ * Not a JMH benchmark: JMH measures one operation at a time, while this needs thousands of
+ * clients in flight and the latency of each request including its wait for a thread.
+ * Each client sends its requests back to back. A request does a little CPU work and two
+ * blocking database calls, each holding one of {@code connections} pooled connections.
+ * Database latency is simulated with sleeps, so the numbers show the threading model only.
+ *
+ * Models: PLATFORM, VIRTUAL, and VIRTUAL_PINNED, where each database call blocks inside
+ * {@code synchronized} (as older JDBC drivers did) and so holds its carrier thread.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar com.securebank.benchmarks.ThreadModelComparison
+ *        [clients=5000] [requestsPerClient=4] [dbCallMillis=2] [connections=200,50]
+ *        [models=PLATFORM,VIRTUAL,VIRTUAL_PINNED]
+ */
+public class ThreadModelComparison {
+
+    enum Model { PLATFORM, VIRTUAL, VIRTUAL_PINNED }
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final long CPU_NANOS_PER_REQUEST = 50_000;
+
+    // Stands in for the connection a driver synchronizes on; escapes, so the JIT cannot elide the lock
+    private static final ThreadLocal<Object> CONNECTION_MONITOR = ThreadLocal.withInitial(Object::new);
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long dbCallMillis = args.length > 2 ? Long.parseLong(args[2]) : 2;
+        int[] connectionCounts = Arrays.stream((args.length > 3 ? args[3] : "200,50").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        List<Model> models = Arrays.stream((args.length > 4 ? args[4] : "PLATFORM,VIRTUAL,VIRTUAL_PINNED").split(","))
+                .map(Model::valueOf).toList();
+
+        System.out.printf("%d clients x %d requests, 2 x %d ms database calls per request, %d cores%n",
+                clients, requestsPerClient, dbCallMillis, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-15s %11s %10s %10s %10s%n", "model", "connections", "req/s", "p50 ms", "p99 ms");
+
+        // Warm-up round, not reported
+        run(Model.PLATFORM, 500, 2, dbCallMillis, 50);
+        run(Model.VIRTUAL, 500, 2, dbCallMillis, 50);
+
+        for (int connections : connectionCounts) {
+            for (Model model : models) {
+                Result result = run(model, clients, requestsPerClient, dbCallMillis, connections);
+                System.out.printf("%-15s %11d %10.0f %10.1f %10.1f%n", model, connections,
+                        result.throughput(), result.percentileMillis(50), result.percentileMillis(99));
+            }
+        }
+    }
+
+    record Result(long[] latenciesNanos, long wallNanos) {
+
+        double throughput() {
+            return latenciesNanos.length / (wallNanos / 1e9);
+        }
+
+        double percentileMillis(int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    static Result run(Model model, int clients, int requestsPerClient, long dbCallMillis, int connections)
+            throws Exception {
+        Semaphore pool = new Semaphore(connections, true);
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService server = model == Model.PLATFORM
+                ? Executors.newFixedThreadPool(TOMCAT_MAX_THREADS)
+                : Executors.newVirtualThreadPerTaskExecutor();
+        Runnable request = () -> {
+            spin(CPU_NANOS_PER_REQUEST);
+            dbCall(pool, dbCallMillis, model == Model.VIRTUAL_PINNED);
+            dbCall(pool, dbCallMillis, model == Model.VIRTUAL_PINNED);
+        };
+
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>(clients);
+            for (int c = 0; c < clients; c++) {
+                running.add(clientThreads.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        long sent = System.nanoTime();
+                        server.submit(request).get();
+                        latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        } finally {
+            server.shutdown();
+        }
+        long wall = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(latencies, wall);
+    }
+
+    private static void dbCall(Semaphore pool, long millis, boolean pinned) {
+        pool.acquireUninterruptibly();
+        try {
+            if (pinned) {
+                synchronized (CONNECTION_MONITOR.get()) {
+                    sleep(millis);
+                }
+            } else {
+                sleep(millis);
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
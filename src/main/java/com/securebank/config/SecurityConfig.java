@@ -1,10 +1,13 @@
 package com.securebank.config;
 
 import com.securebank.security.JwtAuthenticationFilter;
+import com.securebank.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -15,9 +18,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -30,8 +30,13 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses resume on an async dispatch; the request itself was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
                 .requestMatchers("/api/transactions/**").authenticated()
+                // Deposits create money; only funding accounts may make them
+                .requestMatchers(HttpMethod.POST, "/api/accounts/*/deposit").hasAuthority(CustomUserDetailsService.FUNDING_ROLE)
+                .requestMatchers("/api/accounts/**").authenticated()
                 .requestMatchers("/api/auth/profile", "/api/auth/**").authenticated()
                 .anyRequest().authenticated()
             )
@@ -40,10 +45,7 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    // The PasswordEncoder is BoundedPasswordEncoder: BCrypt on its own bounded pool
 
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
@@ -0,0 +1,53 @@
+package com.securebank.controller;
+
+import com.securebank.dto.BalanceResponse;
+import com.securebank.dto.DepositRequest;
+import com.securebank.service.LedgerService;
+import com.securebank.service.UserCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountController {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserCache userCache;
+
+    // ✅ Deposit money into a user's account from outside the bank
+    @PostMapping("/{userId}/deposit")
+    public ResponseEntity<?> deposit(@PathVariable Long userId, @RequestBody DepositRequest request) {
+        try {
+            if (userCache.findById(userId).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found with ID: " + userId);
+            }
+            double balance = ledgerService.deposit(userId, request.getAmount());
+            return ResponseEntity.ok(new BalanceResponse(userId, balance, ledgerService.slotsOf(userId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error processing deposit: " + e.getMessage());
+        }
+    }
+
+    // ✅ Get a user's balance: the sum of their balance slots
+    @GetMapping("/{userId}/balance")
+    public ResponseEntity<?> getBalance(@PathVariable Long userId) {
+        try {
+            if (userCache.findById(userId).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found with ID: " + userId);
+            }
+            return ResponseEntity.ok(new BalanceResponse(userId, ledgerService.getBalance(userId),
+                    ledgerService.slotsOf(userId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error retrieving balance: " + e.getMessage());
+        }
+    }
+}
@@ -1,100 +1,285 @@
 package com.securebank.controller;
 
+import com.securebank.model.RiskBand;
+import com.securebank.model.ScoringStatus;
 import com.securebank.model.Transaction;
+import com.securebank.model.UserAccountSummary;
+import com.securebank.dto.AccountSummaryResponse;
+import com.securebank.dto.BatchTransactionResult;
 import com.securebank.dto.TransactionRequest;
 import com.securebank.dto.TransactionResponse;
+import com.securebank.dto.TransactionStatusResponse;
+import com.securebank.repository.TransactionSummaryView;
+import com.securebank.security.AdmissionControlFilter;
+import com.securebank.security.AuthenticatedUser;
+import com.securebank.service.AccountSummaryService;
+import com.securebank.service.IdempotencyKeyConflictException;
+import com.securebank.service.JournaledElsewhereException;
+import com.securebank.service.IdempotencyService;
+import com.securebank.service.SenderThrottledException;
+import com.securebank.service.TransactionExportService;
 import com.securebank.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+
     @Autowired
     private TransactionService transactionService;
 
-    // ✅ Create a new transaction
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // ✅ Create a new transaction. With an Idempotency-Key, a retry gets the original response back
     @PostMapping("/create")
-    public ResponseEntity<?> createTransaction(@RequestBody TransactionRequest request) {
+    public ResponseEntity<?> createTransaction(@RequestBody TransactionRequest request,
+                                               @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                               @AuthenticationPrincipal AuthenticatedUser principal) {
+        IdempotencyService.Claim claim = null;
         try {
             // Validate request
             if (!request.isValid()) {
                 return ResponseEntity.badRequest().body("Invalid transaction data. Please check sender, receiver, and amount.");
             }
 
+            if (idempotencyKey != null) {
+                claim = idempotencyService.claim(principal.getUserId(), idempotencyKey, IdempotencyService.fingerprint(request));
+                if (claim.stored() != null) {
+                    return replay(claim);
+                }
+            }
+
             Transaction tx = transactionService.createTransaction(
                 request.getSenderId(), 
                 request.getReceiverId(), 
-                request.getAmount()
+                request.getAmount(),
+                claim
             );
 
             // Convert to response DTO
             TransactionResponse response = convertToResponse(tx);
-            return ResponseEntity.ok(response);
+            HttpStatus status = tx.getScoringStatus() == ScoringStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK;
+            if (claim != null) {
+                claim.complete(tx.getId(), status.value(), response);
+            }
+            return created(status, tx.getId(), response);
+        } catch (SenderThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, AdmissionControlFilter.retryAfterSeconds(e.getRetryAfter()))
+                .body("Error: " + e.getMessage());
+        } catch (IdempotencyKeyConflictException e) {
+            return ResponseEntity.status(e.isInProgress() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY)
+                .body("Error: " + e.getMessage());
+        } catch (JournaledElsewhereException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Transaction failed: " + e.getMessage());
+        } finally {
+            // No-op once completed; otherwise the key is free for the client's retry
+            if (claim != null) {
+                claim.release();
+            }
         }
     }
 
-    // ✅ Get transactions by sender user ID
-    @GetMapping("/sender/{senderId}")
-    public ResponseEntity<?> getBySender(@PathVariable Long senderId) {
+    private ResponseEntity<TransactionResponse> created(HttpStatus status, Long id, TransactionResponse response) {
+        if (status == HttpStatus.ACCEPTED) {
+            // Scored in the background; the client polls the status endpoint
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/transactions/" + id + "/status"))
+                .body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // The original response, from memory, or rebuilt from the stored transaction after a restart
+    private ResponseEntity<TransactionResponse> replay(IdempotencyService.Claim claim) {
+        IdempotencyService.StoredResult stored = claim.stored();
+        TransactionResponse response = stored.response();
+        if (response == null) {
+            response = convertToResponse(transactionService.getTransactionSummary(stored.transactionId()));
+            claim.complete(stored.transactionId(), stored.status(), response);
+        }
+        ResponseEntity<TransactionResponse> original = created(HttpStatus.valueOf(stored.status()), stored.transactionId(), response);
+        return ResponseEntity.status(original.getStatusCode())
+            .headers(original.getHeaders())
+            .header(IDEMPOTENT_REPLAY_HEADER, "true")
+            .body(response);
+    }
+
+    // ✅ Create many transactions in one request; every item gets its own result
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransactions(@RequestBody List<TransactionRequest> requests) {
         try {
-            List<Transaction> transactions = transactionService.getTransactionsBySender(senderId);
-            List<TransactionResponse> responses = transactions.stream()
-                .map(this::convertToResponse)
+            List<BatchTransactionResult> results = transactionService.createTransactions(requests).stream()
+                .map(outcome -> outcome.error() == null
+                    ? new BatchTransactionResult(outcome.index(), "CREATED", convertToResponse(outcome.transaction()), null)
+                    : new BatchTransactionResult(outcome.index(), "REJECTED", null, outcome.error()))
                 .collect(Collectors.toList());
-            return ResponseEntity.ok(responses);
+            return ResponseEntity.ok(results);
+        } catch (JournaledElsewhereException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Batch failed: " + e.getMessage());
+        }
+    }
+
+    // ✅ Get transactions by sender user ID, newest first, one page at a time
+    @GetMapping("/sender/{senderId}")
+    public ResponseEntity<?> getBySender(@PathVariable Long senderId,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
+        try {
+            return pageResponse(transactionService.getTransactionsBySender(senderId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error retrieving transactions: " + e.getMessage());
         }
     }
 
-    // ✅ Get transactions by receiver user ID
+    // ✅ Get transactions by receiver user ID, newest first, one page at a time
     @GetMapping("/receiver/{receiverId}")
-    public ResponseEntity<?> getByReceiver(@PathVariable Long receiverId) {
+    public ResponseEntity<?> getByReceiver(@PathVariable Long receiverId,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limit) {
         try {
-            List<Transaction> transactions = transactionService.getTransactionsByReceiver(receiverId);
-            List<TransactionResponse> responses = transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(responses);
+            return pageResponse(transactionService.getTransactionsByReceiver(receiverId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error retrieving transactions: " + e.getMessage());
         }
     }
 
-    // ✅ Get all transactions (for admin purposes)
+    // ✅ Get all transactions (for admin purposes), newest first, one page at a time
     @GetMapping("/all")
-    public ResponseEntity<?> getAllTransactions() {
+    public ResponseEntity<?> getAllTransactions(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
         try {
-            List<Transaction> transactions = transactionService.getAllTransactions();
-            List<TransactionResponse> responses = transactions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(responses);
+            return pageResponse(transactionService.getAllTransactions(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Error retrieving transactions: " + e.getMessage());
         }
     }
 
+    // The body stays a plain array; the next page is announced in headers
+    private ResponseEntity<List<TransactionResponse>> pageResponse(TransactionService.TransactionPage page) {
+        List<TransactionResponse> responses = page.transactions().stream()
+            .map(this::convertToResponse)
+            .collect(Collectors.toList());
+        if (page.nextCursor() == null) {
+            return ResponseEntity.ok(responses);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("cursor", page.nextCursor())
+            .toUriString();
+        return ResponseEntity.ok()
+            .header(NEXT_CURSOR_HEADER, page.nextCursor())
+            .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+            .body(responses);
+    }
+
+    // ✅ Stream every matching transaction as NDJSON (default) or CSV, for audits
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long senderId,
+            @RequestParam(required = false) String risk) {
+        TransactionExportService.Format exportFormat;
+        RiskBand riskBand;
+        try {
+            exportFormat = TransactionExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            riskBand = risk == null ? null : RiskBand.valueOf(risk.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return exportError("Error: format must be ndjson or csv, risk one of " + List.of(RiskBand.values()));
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return exportError("Error: from must be before to");
+        }
+
+        TransactionExportService.ExportFilter filter = new TransactionExportService.ExportFilter(from, to, senderId, riskBand);
+        // Written on an async request thread straight into the response, row by row
+        StreamingResponseBody body = out -> transactionExportService.export(filter, exportFormat, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"")
+            .body(body);
+    }
+
+    // Streaming endpoints can only return a streamed body, errors included
+    private static ResponseEntity<StreamingResponseBody> exportError(String message) {
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // ✅ Get a user's running totals (counts, amounts, activity window, counterparties)
+    @GetMapping("/summary/{userId}")
+    public ResponseEntity<?> getAccountSummary(@PathVariable Long userId) {
+        try {
+            UserAccountSummary summary = accountSummaryService.getSummary(userId);
+            return ResponseEntity.ok(new AccountSummaryResponse(
+                summary.getUserId(),
+                summary.getSentCount(),
+                summary.getSentTotal(),
+                summary.getReceivedCount(),
+                summary.getReceivedTotal(),
+                summary.getFirstTransactionAt(),
+                summary.getLastTransactionAt(),
+                summary.getDistinctCounterparties()
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error retrieving account summary: " + e.getMessage());
+        }
+    }
+
     // ✅ Get transaction by ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getTransactionById(@PathVariable Long id) {
         try {
-            Transaction transaction = transactionService.getTransactionById(id);
+            TransactionSummaryView transaction = transactionService.getTransactionSummary(id);
             TransactionResponse response = convertToResponse(transaction);
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
@@ -106,10 +291,37 @@ public class TransactionController {
         }
     }
 
-    // Helper method to convert Transaction to TransactionResponse
+    // ✅ Poll the fraud scoring status of a transaction
+    @GetMapping("/{id}/status")
+    public ResponseEntity<?> getTransactionStatus(@PathVariable Long id) {
+        try {
+            TransactionSummaryView tx = transactionService.getTransactionSummary(id);
+            boolean pending = tx.getScoringStatus() == ScoringStatus.PENDING;
+            return ResponseEntity.ok(new TransactionStatusResponse(
+                tx.getId(),
+                (tx.getScoringStatus() != null ? tx.getScoringStatus() : ScoringStatus.SCORED).name(),
+                pending ? null : tx.getFraudRiskScore(),
+                tx.getRiskStatus()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Transaction not found with ID: " + id);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Error retrieving transaction: " + e.getMessage());
+        }
+    }
+
+    private String riskStatus(Transaction tx) {
+        if (tx.getScoringStatus() == ScoringStatus.PENDING) {
+            return "PENDING";
+        }
+        return RiskBand.of(tx.getFraudRiskScore()).name();
+    }
+
+    // Helper method to convert Transaction to TransactionResponse (write path: sender and receiver are loaded)
     private TransactionResponse convertToResponse(Transaction tx) {
-        String status = tx.getFraudRiskScore() > 7 ? "HIGH_RISK" : 
-                       tx.getFraudRiskScore() > 4 ? "MEDIUM_RISK" : "LOW_RISK";
+        String status = riskStatus(tx);
         
         return new TransactionResponse(
             tx.getId(),
@@ -123,4 +335,19 @@ public class TransactionController {
             status
         );
     }
+
+    // Read path: the projection already carries everything the response shows
+    private TransactionResponse convertToResponse(TransactionSummaryView tx) {
+        return new TransactionResponse(
+            tx.getId(),
+            tx.getSenderId(),
+            tx.getSenderEmail(),
+            tx.getReceiverId(),
+            tx.getReceiverEmail(),
+            tx.getAmount(),
+            tx.getTimestamp(),
+            tx.getFraudRiskScore(),
+            tx.getRiskStatus()
+        );
+    }
 }
@@ -1,14 +1,19 @@
 package com.securebank.controller;
 
 import com.securebank.model.User;
+import com.securebank.service.CustomUserDetailsService;
 import com.securebank.service.UserService;
 import com.securebank.dto.AuthRequest;
 import com.securebank.dto.AuthResponse;
+import com.securebank.security.AdmissionControlFilter;
 import com.securebank.security.JwtUtil;
+import com.securebank.security.PasswordHashingRejectedException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.Optional;
@@ -26,11 +31,16 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
     @PostMapping("/register")
     public ResponseEntity<String> registerUser(@RequestBody User user) {
         try {
             userService.registerUser(user);
             return ResponseEntity.ok("User registered successfully!");
+        } catch (PasswordHashingRejectedException e) {
+            return busy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
@@ -46,14 +56,27 @@ public class UserController {
 
         User user = userOpt.get();
 
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid password");
+        try {
+            if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid password");
+            }
+        } catch (PasswordHashingRejectedException e) {
+            return busy(e);
         }
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        // ID, token version and roles ride in the token so stateless mode needs no lookup
+        String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getTokenVersion(),
+                userDetailsService.rolesOf(user.getEmail()));
         return ResponseEntity.ok(new AuthResponse("Login successful", token));
     }
 
+    // ✅ Revoke every token issued to the caller so far
+    @PostMapping("/revoke")
+    public ResponseEntity<String> revokeTokens(Authentication authentication) {
+        userService.revokeTokens(authentication.getName());
+        return ResponseEntity.ok("Tokens revoked. Please log in again.");
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<?> getUserProfile(@RequestHeader("Authorization") String authHeader) {
         String token = authHeader.replace("Bearer ", "");
@@ -78,6 +101,11 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
     }
-}
-
 
+    // Hashing pool saturated: tell the client when to come back instead of queueing the request
+    private static ResponseEntity<String> busy(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, AdmissionControlFilter.retryAfterSeconds(e.getRetryAfter()))
+                .body(e.getMessage());
+    }
+}
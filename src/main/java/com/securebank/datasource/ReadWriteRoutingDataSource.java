@@ -0,0 +1,60 @@
+package com.securebank.datasource;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for
+ * a connection before the transaction is marked read-only, and the proxy defers the lookup
+ * to the first statement.
+ *
+ * Two exceptions keep reads consistent: a user who committed a write in the last
+ * {@code spring.datasource.replica.pin-after-write} reads from the primary, and so does
+ * everything before the application is ready (graph replay and recovery must see every row).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements ApplicationListener<ApplicationReadyEvent> {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWrites readYourWrites;
+
+    private volatile boolean replicaEnabled;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        replicaEnabled = true;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return replicaEnabled && !readYourWrites.isPinned() ? Route.REPLICA : Route.PRIMARY;
+        }
+        // A read-write transaction: once it commits, its user reads their own writes for a while
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWrites.recordWrite();
+                }
+            });
+        }
+        return Route.PRIMARY;
+    }
+}
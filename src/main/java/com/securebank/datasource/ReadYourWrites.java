@@ -0,0 +1,54 @@
+package com.securebank.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which authenticated users wrote in the last {@code window}, so their reads go
+ * to the primary until the replica has caught up with their writes. Keyed by principal
+ * name; work without a principal (background threads, login) is never pinned.
+ */
+public class ReadYourWrites {
+
+    private final long windowNanos;
+
+    // Principal name -> System.nanoTime() until which it reads from the primary
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWrites(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite() {
+        String principal = currentPrincipal();
+        if (principal != null) {
+            pinnedUntil.put(principal, System.nanoTime() + windowNanos);
+        }
+    }
+
+    public boolean isPinned() {
+        String principal = currentPrincipal();
+        if (principal == null) {
+            return false;
+        }
+        Long until = pinnedUntil.get(principal);
+        return until != null && System.nanoTime() - until < 0;
+    }
+
+    // Drops expired pins of users who wrote and then never read again
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.pin-after-write:5s}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        pinnedUntil.values().removeIf(until -> now - until >= 0);
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
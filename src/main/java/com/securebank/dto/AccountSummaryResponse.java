@@ -0,0 +1,93 @@
+package com.securebank.dto;
+
+import java.time.LocalDateTime;
+
+public class AccountSummaryResponse {
+    private Long userId;
+    private long sentCount;
+    private double sentTotal;
+    private long receivedCount;
+    private double receivedTotal;
+    private LocalDateTime firstTransactionAt;
+    private LocalDateTime lastTransactionAt;
+    private long distinctCounterparties;
+
+    // Constructors
+    public AccountSummaryResponse() {}
+
+    public AccountSummaryResponse(Long userId, long sentCount, double sentTotal, long receivedCount, double receivedTotal, LocalDateTime firstTransactionAt, LocalDateTime lastTransactionAt, long distinctCounterparties) {
+        this.userId = userId;
+        this.sentCount = sentCount;
+        this.sentTotal = sentTotal;
+        this.receivedCount = receivedCount;
+        this.receivedTotal = receivedTotal;
+        this.firstTransactionAt = firstTransactionAt;
+        this.lastTransactionAt = lastTransactionAt;
+        this.distinctCounterparties = distinctCounterparties;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public double getSentTotal() {
+        return sentTotal;
+    }
+
+    public void setSentTotal(double sentTotal) {
+        this.sentTotal = sentTotal;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    public void setReceivedCount(long receivedCount) {
+        this.receivedCount = receivedCount;
+    }
+
+    public double getReceivedTotal() {
+        return receivedTotal;
+    }
+
+    public void setReceivedTotal(double receivedTotal) {
+        this.receivedTotal = receivedTotal;
+    }
+
+    public LocalDateTime getFirstTransactionAt() {
+        return firstTransactionAt;
+    }
+
+    public void setFirstTransactionAt(LocalDateTime firstTransactionAt) {
+        this.firstTransactionAt = firstTransactionAt;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+
+    public long getDistinctCounterparties() {
+        return distinctCounterparties;
+    }
+
+    public void setDistinctCounterparties(long distinctCounterparties) {
+        this.distinctCounterparties = distinctCounterparties;
+    }
+}
@@ -0,0 +1,41 @@
+package com.securebank.dto;
+
+public class BalanceResponse {
+    private Long userId;
+    private double balance;
+    private int slots;
+
+    // Constructors
+    public BalanceResponse() {}
+
+    public BalanceResponse(Long userId, double balance, int slots) {
+        this.userId = userId;
+        this.balance = balance;
+        this.slots = slots;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+}
@@ -0,0 +1,51 @@
+package com.securebank.dto;
+
+public class BatchTransactionResult {
+    private int index;
+    private String result;
+    private TransactionResponse transaction;
+    private String error;
+
+    // Constructors
+    public BatchTransactionResult() {}
+
+    public BatchTransactionResult(int index, String result, TransactionResponse transaction, String error) {
+        this.index = index;
+        this.result = result;
+        this.transaction = transaction;
+        this.error = error;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public TransactionResponse getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionResponse transaction) {
+        this.transaction = transaction;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
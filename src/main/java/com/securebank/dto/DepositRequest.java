@@ -0,0 +1,21 @@
+package com.securebank.dto;
+
+public class DepositRequest {
+    private double amount;
+
+    // Constructors
+    public DepositRequest() {}
+
+    public DepositRequest(double amount) {
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+}
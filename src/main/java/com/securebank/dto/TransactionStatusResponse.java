@@ -0,0 +1,51 @@
+package com.securebank.dto;
+
+public class TransactionStatusResponse {
+    private Long id;
+    private String scoringStatus;
+    private Integer fraudRiskScore;
+    private String status;
+
+    // Constructors
+    public TransactionStatusResponse() {}
+
+    public TransactionStatusResponse(Long id, String scoringStatus, Integer fraudRiskScore, String status) {
+        this.id = id;
+        this.scoringStatus = scoringStatus;
+        this.fraudRiskScore = fraudRiskScore;
+        this.status = status;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getScoringStatus() {
+        return scoringStatus;
+    }
+
+    public void setScoringStatus(String scoringStatus) {
+        this.scoringStatus = scoringStatus;
+    }
+
+    public Integer getFraudRiskScore() {
+        return fraudRiskScore;
+    }
+
+    public void setFraudRiskScore(Integer fraudRiskScore) {
+        this.fraudRiskScore = fraudRiskScore;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,56 @@
+package com.securebank.journal;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+/**
+ * One accepted transfer as written to the journal: fixed size, so a record's place in a
+ * segment follows from its sequence number. A checksum marks it complete; a slot that
+ * was never written or was torn by a crash fails it, which is where a segment ends.
+ */
+public record JournalRecord(long transactionId, long senderId, long receiverId, double amount,
+                            LocalDateTime timestamp, int fraudRiskScore) {
+
+    public static final int SIZE = 56;
+
+    private static final int MAGIC = 0x53424A31; // "SBJ1"
+    private static final int BODY_OFFSET = 4;
+    private static final int BODY_SIZE = 48;
+    private static final int CHECKSUM_OFFSET = BODY_OFFSET + BODY_SIZE;
+
+    void writeTo(ByteBuffer buffer, int offset) {
+        int body = offset + BODY_OFFSET;
+        buffer.putLong(body, transactionId);
+        buffer.putLong(body + 8, senderId);
+        buffer.putLong(body + 16, receiverId);
+        buffer.putDouble(body + 24, amount);
+        buffer.putLong(body + 32, timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(body + 40, timestamp.getNano());
+        buffer.putInt(body + 44, fraudRiskScore);
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset));
+        buffer.putInt(offset, MAGIC);
+    }
+
+    // The record in the slot at offset, or null if the slot holds no complete record
+    static JournalRecord readFrom(ByteBuffer buffer, int offset) {
+        if (buffer.getInt(offset) != MAGIC || buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(buffer, offset)) {
+            return null;
+        }
+        int body = offset + BODY_OFFSET;
+        return new JournalRecord(
+                buffer.getLong(body),
+                buffer.getLong(body + 8),
+                buffer.getLong(body + 16),
+                buffer.getDouble(body + 24),
+                LocalDateTime.ofEpochSecond(buffer.getLong(body + 32), buffer.getInt(body + 40), ZoneOffset.UTC),
+                buffer.getInt(body + 44));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + BODY_OFFSET, BODY_SIZE));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,378 @@
+package com.securebank.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * An append-only log of {@link JournalRecord}s in memory-mapped segment files, made
+ * durable by group commit: appends only copy into the mapping, and one sync thread
+ * forces everything appended since its last pass with a single {@code msync}, then wakes
+ * every writer it covered. Under load one fsync acknowledges many records.
+ *
+ * Records are numbered from 0 in append order. A consumer reads durable records with
+ * {@link #read} and calls {@link #release} once it has stored them elsewhere; segments
+ * wholly released are deleted. Segments left by an earlier run (a crash, or a shutdown
+ * that could not drain) are read back on open as {@link #recovered()} records, and are
+ * deleted by {@link #discardRecovered()} once the caller has replayed them.
+ */
+public class SegmentedJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedJournal.class);
+
+    private static final String SUFFIX = ".journal";
+
+    // Told how many records each sync made durable and how long the force took
+    public interface SyncListener {
+        void synced(long records, long nanos);
+    }
+
+    private record Segment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final SyncListener syncListener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appendedMore = lock.newCondition();
+    private final Condition durableMore = lock.newCondition();
+
+    // Guarded by lock. Oldest first; the last one is appended to
+    private final List<Segment> segments = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private long released;
+    private long nextSegmentNumber;
+    private boolean closed;
+    private boolean syncing = true;
+    private RuntimeException syncFailure;
+
+    private final List<JournalRecord> recovered = new ArrayList<>();
+    private final List<Path> recoveredFiles = new ArrayList<>();
+    private final Thread syncer;
+
+    public SegmentedJournal(Path directory, long segmentBytes, SyncListener syncListener) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.min(Integer.MAX_VALUE / JournalRecord.SIZE,
+                Math.max(1, segmentBytes / JournalRecord.SIZE));
+        this.syncListener = syncListener;
+        Files.createDirectories(directory);
+        recover();
+        segments.add(openSegment(0));
+        syncer = Thread.ofPlatform().daemon().name("journal-sync").start(this::syncLoop);
+    }
+
+    /** Copies a record into the journal and returns its sequence number; it is not yet durable. */
+    public long append(JournalRecord record) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            Segment active = segments.get(segments.size() - 1);
+            long slot = appended - active.firstSequence();
+            if (slot == recordsPerSegment) {
+                active = openSegment(appended);
+                segments.add(active);
+                slot = 0;
+            }
+            record.writeTo(active.buffer(), (int) slot * JournalRecord.SIZE);
+            appendedMore.signal();
+            return appended++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the record with this sequence number is on disk.
+     *
+     * @return false if that took longer than the timeout
+     * @throws IllegalStateException if syncing failed or the journal was closed first
+     */
+    public boolean awaitDurable(long sequence, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (durable <= sequence) {
+                if (syncFailure != null) {
+                    throw new IllegalStateException("Journal sync failed", syncFailure);
+                }
+                if (!syncing) {
+                    throw new IllegalStateException("Journal closed before the record was synced");
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = durableMore.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Up to max durable records from this sequence number on, in order; empty if there are none yet
+    public List<JournalRecord> read(long fromSequence, int max) {
+        List<Segment> snapshot;
+        long until;
+        lock.lock();
+        try {
+            until = Math.min(durable, fromSequence + max);
+            snapshot = List.copyOf(segments);
+        } finally {
+            lock.unlock();
+        }
+        List<JournalRecord> records = new ArrayList<>((int) Math.max(0, until - fromSequence));
+        for (long sequence = fromSequence; sequence < until; sequence++) {
+            Segment segment = segmentOf(snapshot, sequence);
+            int offset = (int) (sequence - segment.firstSequence()) * JournalRecord.SIZE;
+            records.add(JournalRecord.readFrom(segment.buffer(), offset));
+        }
+        return records;
+    }
+
+    // Records below this sequence number are stored elsewhere; segments holding only those are deleted
+    public void release(long upToSequence) {
+        lock.lock();
+        try {
+            released = Math.max(released, upToSequence);
+            while (segments.size() > 1 && segments.get(0).firstSequence() + recordsPerSegment <= released) {
+                delete(segments.remove(0));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // False once sealed, or after a sync failed
+    public boolean isOpen() {
+        lock.lock();
+        try {
+            return !closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long appendedCount() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long durableCount() {
+        lock.lock();
+        try {
+            return durable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Records found in segments left by an earlier run, oldest first
+    public List<JournalRecord> recovered() {
+        return recovered;
+    }
+
+    public void discardRecovered() throws IOException {
+        for (Path file : recoveredFiles) {
+            Files.deleteIfExists(file);
+        }
+        recoveredFiles.clear();
+        recovered.clear();
+    }
+
+    /**
+     * Stops taking appends and returns once everything appended is synced. Waiters are
+     * woken; records can still be read and released.
+     */
+    public void seal() {
+        lock.lock();
+        try {
+            closed = true;
+            appendedMore.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Seals the journal and closes its files. They stay on disk for the next run to
+     * recover, unless every record was released.
+     */
+    @Override
+    public void close() throws IOException {
+        seal();
+        boolean drained = released >= appended;
+        for (Segment segment : segments) {
+            if (drained) {
+                delete(segment);
+            } else {
+                segment.channel().close();
+            }
+        }
+        segments.clear();
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long from;
+            long to;
+            List<Segment> snapshot;
+            lock.lock();
+            try {
+                while (appended == durable && !closed) {
+                    appendedMore.awaitUninterruptibly();
+                }
+                if (appended == durable) {
+                    stopSyncing();
+                    return;
+                }
+                from = durable;
+                to = appended;
+                snapshot = List.copyOf(segments);
+            } finally {
+                lock.unlock();
+            }
+
+            long start = System.nanoTime();
+            RuntimeException failure = null;
+            try {
+                force(snapshot, from, to);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            if (failure == null) {
+                syncListener.synced(to - from, System.nanoTime() - start);
+            }
+
+            lock.lock();
+            try {
+                if (failure != null) {
+                    // Nothing after an unsynced record can be acknowledged; writers fail from here on
+                    log.error("Journal sync failed; no further records will be acknowledged", failure);
+                    syncFailure = failure;
+                    closed = true;
+                    stopSyncing();
+                    return;
+                }
+                durable = to;
+                durableMore.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Called holding the lock: waiters for records that will never be synced give up
+    private void stopSyncing() {
+        syncing = false;
+        durableMore.signalAll();
+    }
+
+    // Forces the slots of records [from, to), which may span a segment boundary
+    private void force(List<Segment> snapshot, long from, long to) {
+        for (Segment segment : snapshot) {
+            long first = Math.max(from, segment.firstSequence());
+            long last = Math.min(to, segment.firstSequence() + recordsPerSegment);
+            if (first < last) {
+                segment.buffer().force((int) (first - segment.firstSequence()) * JournalRecord.SIZE,
+                        (int) (last - first) * JournalRecord.SIZE);
+            }
+        }
+    }
+
+    private Segment segmentOf(List<Segment> snapshot, long sequence) {
+        for (Segment segment : snapshot) {
+            if (sequence < segment.firstSequence() + recordsPerSegment) {
+                return segment;
+            }
+        }
+        throw new IllegalStateException("No segment holds record " + sequence);
+    }
+
+    private Segment openSegment(long firstSequence) {
+        Path path = directory.resolve(String.format("%020d%s", nextSegmentNumber++, SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Mapping past the end extends the file to its full size
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) recordsPerSegment * JournalRecord.SIZE);
+            syncDirectory();
+            return new Segment(path, firstSequence, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + path, e);
+        }
+    }
+
+    // Makes the new file's directory entry durable, so a crash cannot lose a segment that records were synced to
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (Windows); the file's own syncs still apply
+            log.debug("Cannot sync journal directory {}", directory, e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        try {
+            segment.channel().close();
+            Files.deleteIfExists(segment.path());
+        } catch (IOException e) {
+            log.warn("Cannot delete journal segment {}", segment.path(), e);
+        }
+    }
+
+    // Reads every complete record of the segments already in the directory, in file order
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            nextSegmentNumber = Math.max(nextSegmentNumber,
+                    Long.parseLong(name.substring(0, name.length() - SUFFIX.length())) + 1);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                for (int offset = 0; offset + JournalRecord.SIZE <= buffer.capacity(); offset += JournalRecord.SIZE) {
+                    JournalRecord record = JournalRecord.readFrom(buffer, offset);
+                    if (record == null) {
+                        break;
+                    }
+                    recovered.add(record);
+                }
+            }
+            recoveredFiles.add(file);
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Recovered {} journal records from {} segments in {}", recovered.size(), files.size(), directory);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.securebank.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times one hot-path phase. Every measurement goes to a Micrometer {@link Timer} and,
+ * while a request is being traced, to its Server-Timing breakdown under {@code phase}.
+ * SLO buckets come from {@code management.metrics.distribution.slo.*}.
+ */
+public final class PhaseTimer {
+
+    private final Timer timer;
+    private final String phase;
+
+    private PhaseTimer(Timer timer, String phase) {
+        this.timer = timer;
+        this.phase = phase;
+    }
+
+    public static PhaseTimer of(MeterRegistry registry, String name, String description, String phase, String... tags) {
+        return new PhaseTimer(Timer.builder(name).description(description).tags(tags).register(registry), phase);
+    }
+
+    public <T> T record(Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            stop(start);
+        }
+    }
+
+    // Ends a measurement started with System.nanoTime(), for code that cannot be wrapped in a lambda
+    public void stop(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        RequestTimings.record(phase, nanos);
+    }
+}
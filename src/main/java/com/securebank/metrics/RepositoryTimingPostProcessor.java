@@ -0,0 +1,26 @@
+package com.securebank.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds every Spring Data repository call to the request's Server-Timing breakdown as
+ * {@code db-<method>}. The Micrometer side is Spring Boot's own
+ * {@code spring.data.repository.invocations} timer, tagged by repository and method.
+ */
+@Component
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(invocation ->
+                    RequestTimings.record("db-" + invocation.getMethod().getName(),
+                            invocation.getDuration(TimeUnit.NANOSECONDS))));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,66 @@
+package com.securebank.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Phase durations of the HTTP request running on the current thread, rendered as a
+ * {@code Server-Timing} header.
+ *
+ * Only collects while {@link ServerTimingFilter} has opened a request on this thread;
+ * anywhere else (background scoring, startup, header disabled) recording is a no-op.
+ * Repeated phases, such as several repository calls, are summed.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    private static final class Phase {
+        long nanos;
+        int count;
+    }
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings open() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    public static void record(String phase, long nanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            Phase entry = timings.phases.computeIfAbsent(phase, name -> new Phase());
+            entry.nanos += nanos;
+            entry.count++;
+        }
+    }
+
+    // e.g. "db-findById;desc="2 calls";dur=0.412, fraud-rules;dur=0.120, total;dur=3.015"
+    String toHeader() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Phase> entry : phases.entrySet()) {
+            Phase phase = entry.getValue();
+            header.append(entry.getKey());
+            if (phase.count > 1) {
+                header.append(";desc=\"").append(phase.count).append(" calls\"");
+            }
+            header.append(";dur=").append(millis(phase.nanos)).append(", ");
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - start)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
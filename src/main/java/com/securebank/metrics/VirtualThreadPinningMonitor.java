@@ -0,0 +1,123 @@
+package com.securebank.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads pinned to their carrier: blocking while holding a monitor
+ * ({@code synchronized}) or inside a native frame keeps the carrier busy, so a few of them
+ * can stall every request. Listens to the JFR {@code jdk.VirtualThreadPinned} event and
+ * records each pin longer than {@code virtual-threads.pinning-monitor.threshold} under
+ * {@code securebank.virtual-threads.pinned{path,site}}: {@code path} is where the thread
+ * blocked (jdbc, hibernate, or synchronized for anything else) and {@code site} the
+ * innermost application frame.
+ * The first pin at each site is also logged with its stack.
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.securebank.";
+    private static final int LOGGED_FRAMES = 20;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // On by default whenever virtual threads are
+    @Value("${virtual-threads.pinning-monitor.enabled:${spring.threads.virtual.enabled:false}}")
+    private boolean enabled;
+
+    @Value("${virtual-threads.pinning-monitor.threshold:20ms}")
+    private Duration threshold;
+
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String path = path(frames);
+        String site = site(frames);
+        Timer.builder("securebank.virtual-threads.pinned")
+                .description("Time virtual threads spent pinned to their carrier thread")
+                .tag("path", path)
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (loggedSites.add(path + " " + site)) {
+            StringBuilder stack = new StringBuilder();
+            frames.stream().limit(LOGGED_FRAMES).forEach(frame -> stack.append("\n\tat ")
+                    .append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber()));
+            log.warn("Virtual thread pinned for {} ms ({} path, at {}); further pins here are only counted:{}",
+                    event.getDuration().toMillis(), path, site, stack);
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    // The blocking call is the innermost frame we recognise
+    private static String path(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("com.mysql.") || type.startsWith("com.zaxxer.hikari.")
+                    || type.startsWith("org.h2.") || type.startsWith("java.sql.")) {
+                return "jdbc";
+            }
+            if (type.startsWith("org.hibernate.")) {
+                return "hibernate";
+            }
+        }
+        // Blocked in our own code, e.g. inside a synchronized block
+        return "synchronized";
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APP_PACKAGE)) {
+                return type.substring(APP_PACKAGE.length()) + "." + frame.getMethod().getName();
+            }
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,85 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One slot of a user's balance. Most accounts have a single slot (0); hot accounts are
+ * split into several so concurrent transfers update different rows, and the balance is
+ * the sum of the slots.
+ *
+ * Not versioned: balances only change through single-statement updates
+ * ({@code balance = balance + ?}), which the database applies atomically.
+ */
+@Entity
+@Table(name = "account_balances")
+@IdClass(AccountBalance.Key.class)
+public class AccountBalance {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private int slot;
+
+    private double balance;
+
+    public AccountBalance() {
+    }
+
+    public AccountBalance(Long userId, int slot, double balance) {
+        this.userId = userId;
+        this.slot = slot;
+        this.balance = balance;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public void setBalance(double balance) {
+        this.balance = balance;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long userId;
+        private int slot;
+
+        public Key() {
+        }
+
+        public Key(Long userId, int slot) {
+            this.userId = userId;
+            this.slot = slot;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && userId.equals(key.userId) && slot == key.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, slot);
+        }
+    }
+}
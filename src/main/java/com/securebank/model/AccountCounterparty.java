@@ -0,0 +1,76 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Two users that have transacted with each other, in either direction, stored once
+ * with the lower ID first. Lets an insert tell in O(1) whether it adds a new
+ * counterparty to both accounts' {@link UserAccountSummary}.
+ */
+@Entity
+@Table(name = "account_counterparties")
+@IdClass(AccountCounterparty.Key.class)
+public class AccountCounterparty {
+
+    @Id
+    @Column(name = "low_user_id")
+    private Long lowUserId;
+
+    @Id
+    @Column(name = "high_user_id")
+    private Long highUserId;
+
+    public AccountCounterparty() {
+    }
+
+    public AccountCounterparty(Key key) {
+        this.lowUserId = key.lowUserId;
+        this.highUserId = key.highUserId;
+    }
+
+    public Long getLowUserId() {
+        return lowUserId;
+    }
+
+    public Long getHighUserId() {
+        return highUserId;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long lowUserId;
+        private Long highUserId;
+
+        public Key() {
+        }
+
+        public Key(Long lowUserId, Long highUserId) {
+            this.lowUserId = lowUserId;
+            this.highUserId = highUserId;
+        }
+
+        public static Key of(Long userId, Long otherUserId) {
+            return userId < otherUserId ? new Key(userId, otherUserId) : new Key(otherUserId, userId);
+        }
+
+        public Long getLowUserId() {
+            return lowUserId;
+        }
+
+        public Long getHighUserId() {
+            return highUserId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && lowUserId.equals(key.lowUserId) && highUserId.equals(key.highUserId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lowUserId, highUserId);
+        }
+    }
+}
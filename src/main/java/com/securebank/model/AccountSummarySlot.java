@@ -0,0 +1,118 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One slot of the summary activity of a hot account (one split into balance slots, see
+ * {@link AccountBalance}). Transfers touching such an account add to a random slot
+ * instead of its versioned {@link UserAccountSummary}, so concurrent transfers into one
+ * merchant neither conflict nor retry. The account's summary is its row plus its slots.
+ *
+ * Not versioned: slots only change through single-statement updates.
+ */
+@Entity
+@Table(name = "account_summary_slots")
+@IdClass(AccountSummarySlot.Key.class)
+public class AccountSummarySlot {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    private int slot;
+
+    private long sentCount;
+
+    private double sentTotal;
+
+    private long receivedCount;
+
+    private double receivedTotal;
+
+    private LocalDateTime firstTransactionAt;
+
+    private LocalDateTime lastTransactionAt;
+
+    private long distinctCounterparties;
+
+    public AccountSummarySlot() {
+    }
+
+    // An empty slot, created for every slot of an account the first time it is used
+    public AccountSummarySlot(Long userId, int slot) {
+        this.userId = userId;
+        this.slot = slot;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public double getSentTotal() {
+        return sentTotal;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    public double getReceivedTotal() {
+        return receivedTotal;
+    }
+
+    public LocalDateTime getFirstTransactionAt() {
+        return firstTransactionAt;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public long getDistinctCounterparties() {
+        return distinctCounterparties;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long userId;
+        private int slot;
+
+        public Key() {
+        }
+
+        public Key(Long userId, int slot) {
+            this.userId = userId;
+            this.slot = slot;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && userId.equals(key.userId) && slot == key.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, slot);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A transaction moved out of the hot {@code transactions} table once it aged past
+ * {@code transactions.archive.max-age}. Same columns and IDs as {@link Transaction};
+ * rows are only ever written by the archiver and never change afterwards.
+ */
+@Entity
+@Table(name = "transactions_archive", indexes = {
+    @Index(name = "idx_transactions_archive_time", columnList = "timestamp, id"),
+    @Index(name = "idx_transactions_archive_sender_time", columnList = "sender_id, timestamp, id"),
+    @Index(name = "idx_transactions_archive_receiver_time", columnList = "receiver_id, timestamp, id")
+})
+public class ArchivedTransaction {
+
+    // Copied from the hot row, never generated
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_id", nullable = false)
+    private User sender;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_id", nullable = false)
+    private User receiver;
+
+    private double amount;
+
+    private LocalDateTime timestamp;
+
+    private int fraudRiskScore;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scoring_status", length = 16)
+    private ScoringStatus scoringStatus;
+
+    public ArchivedTransaction() {
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public User getSender() {
+        return sender;
+    }
+
+    public User getReceiver() {
+        return receiver;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public int getFraudRiskScore() {
+        return fraudRiskScore;
+    }
+
+    public ScoringStatus getScoringStatus() {
+        return scoringStatus == null ? ScoringStatus.SCORED : scoringStatus;
+    }
+}
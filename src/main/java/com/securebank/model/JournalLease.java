@@ -0,0 +1,46 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The instance allowed to journal transfers. Funds reserved by the journal live in that
+ * instance's memory, so while it holds a live lease every other instance refuses direct
+ * transfers that need a funds check. Renewed by its holder; expires if the holder dies.
+ */
+@Entity
+@Table(name = "journal_lease")
+public class JournalLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // Host and journal directory of the holder
+    @Column(nullable = false, length = 512)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public JournalLease() {
+    }
+
+    public JournalLease(String name, String owner, LocalDateTime expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
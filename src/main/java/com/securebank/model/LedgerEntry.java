@@ -0,0 +1,75 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One side of a double-entry posting: every transfer writes a debit (negative amount)
+ * on the sender and a credit on the receiver, in the same database transaction as the
+ * transfer and the balance updates, so each account's entries sum to its balance.
+ * Deposits have no transaction and are debited to {@code LedgerService.EXTERNAL_ACCOUNT}.
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+    @Index(name = "idx_ledger_entries_account", columnList = "account_id, id"),
+    @Index(name = "idx_ledger_entries_transaction", columnList = "transaction_id")
+})
+public class LedgerEntry {
+
+    // Pooled sequence, like transactions, so postings are JDBC-batched with the insert
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    // The balance slot the amount was applied to
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public LedgerEntry() {
+    }
+
+    public LedgerEntry(Long transactionId, Long accountId, int slot, double amount) {
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+        this.slot = slot;
+        this.amount = amount;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.securebank.model;
+
+// Risk category of a scored transaction, by fraud score range (inclusive)
+public enum RiskBand {
+    LOW_RISK(0, 4),
+    MEDIUM_RISK(5, 7),
+    HIGH_RISK(8, Integer.MAX_VALUE);
+
+    private final int minScore;
+    private final int maxScore;
+
+    RiskBand(int minScore, int maxScore) {
+        this.minScore = minScore;
+        this.maxScore = maxScore;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public static RiskBand of(int fraudRiskScore) {
+        return fraudRiskScore > 7 ? HIGH_RISK : fraudRiskScore > 4 ? MEDIUM_RISK : LOW_RISK;
+    }
+}
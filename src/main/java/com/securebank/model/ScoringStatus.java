@@ -0,0 +1,7 @@
+package com.securebank.model;
+
+// Whether a transaction's fraudRiskScore is final yet
+public enum ScoringStatus {
+    PENDING,
+    SCORED
+}
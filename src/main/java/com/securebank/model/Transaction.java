@@ -4,18 +4,27 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_scoring_status", columnList = "scoring_status"),
+    // Keyset pagination reads newest first along (timestamp, id), optionally per sender or receiver
+    @Index(name = "idx_transactions_time", columnList = "timestamp, id"),
+    @Index(name = "idx_transactions_sender_time", columnList = "sender_id, timestamp, id"),
+    @Index(name = "idx_transactions_receiver_time", columnList = "receiver_id, timestamp, id")
+})
 public class Transaction {
 
+    // Pooled sequence (a table on MySQL) instead of IDENTITY, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    // LAZY: writes only need the ID, and reads go through TransactionSummaryView instead
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_id", nullable = false)
     private User receiver;
 
@@ -25,6 +34,11 @@ public class Transaction {
 
     private int fraudRiskScore = 0;
 
+    // PENDING while the score is computed in the background; null on rows saved before this column existed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scoring_status", length = 16)
+    private ScoringStatus scoringStatus = ScoringStatus.SCORED;
+
     
     public Transaction() {
         this.timestamp = LocalDateTime.now();
@@ -88,4 +102,12 @@ public class Transaction {
     public void setFraudRiskScore(int fraudRiskScore) {
         this.fraudRiskScore = fraudRiskScore;
     }
+
+    public ScoringStatus getScoringStatus() {
+        return scoringStatus == null ? ScoringStatus.SCORED : scoringStatus;
+    }
+
+    public void setScoringStatus(ScoringStatus scoringStatus) {
+        this.scoringStatus = scoringStatus;
+    }
 }
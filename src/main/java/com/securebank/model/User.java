@@ -19,6 +19,10 @@ public class User {
 	    @Column(nullable = false)
 	    private String password;
 
+	    // Bumped to revoke every token issued so far; tokens carry the version they were issued at
+	    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+	    private int tokenVersion;
+
 	    // Getters and Setters
 
 	    public Long getId() {
@@ -52,6 +56,14 @@ public class User {
 	    public void setPassword(String password) {
 	        this.password = password;
 	    }
+
+	    public int getTokenVersion() {
+	        return tokenVersion;
+	    }
+
+	    public void setTokenVersion(int tokenVersion) {
+	        this.tokenVersion = tokenVersion;
+	    }
 	
 
 }
@@ -0,0 +1,162 @@
+package com.securebank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of one user's transactions, updated in the same database transaction
+ * as every insert so analytics never scan the user's history.
+ *
+ * Versioned: concurrent writers to the same account don't lock the row while they
+ * work; the one that commits second fails its version check and retries.
+ */
+@Entity
+@Table(name = "user_account_summary")
+public class UserAccountSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long sentCount;
+
+    private double sentTotal;
+
+    private long receivedCount;
+
+    private double receivedTotal;
+
+    private LocalDateTime firstTransactionAt;
+
+    private LocalDateTime lastTransactionAt;
+
+    private long distinctCounterparties;
+
+    // Null until first saved, which is also how Spring Data tells a new summary apart
+    @Version
+    private Long version;
+
+    public UserAccountSummary() {
+    }
+
+    public UserAccountSummary(Long userId) {
+        this.userId = userId;
+    }
+
+    public void recordSent(double amount, LocalDateTime at) {
+        sentCount++;
+        sentTotal += amount;
+        recordTime(at);
+    }
+
+    public void recordReceived(double amount, LocalDateTime at) {
+        receivedCount++;
+        receivedTotal += amount;
+        recordTime(at);
+    }
+
+    public void addCounterparty() {
+        distinctCounterparties++;
+    }
+
+    // Folds in activity kept elsewhere: another summary's totals or a hot account's slot
+    public void add(UserAccountSummary other) {
+        add(other.sentCount, other.sentTotal, other.receivedCount, other.receivedTotal,
+                other.firstTransactionAt, other.lastTransactionAt, other.distinctCounterparties);
+    }
+
+    public void add(AccountSummarySlot slot) {
+        add(slot.getSentCount(), slot.getSentTotal(), slot.getReceivedCount(), slot.getReceivedTotal(),
+                slot.getFirstTransactionAt(), slot.getLastTransactionAt(), slot.getDistinctCounterparties());
+    }
+
+    private void add(long sent, double sentAmount, long received, double receivedAmount,
+                     LocalDateTime first, LocalDateTime last, long counterparties) {
+        sentCount += sent;
+        sentTotal += sentAmount;
+        receivedCount += received;
+        receivedTotal += receivedAmount;
+        distinctCounterparties += counterparties;
+        if (first != null) {
+            recordTime(first);
+        }
+        if (last != null) {
+            recordTime(last);
+        }
+    }
+
+    private void recordTime(LocalDateTime at) {
+        if (firstTransactionAt == null || at.isBefore(firstTransactionAt)) {
+            firstTransactionAt = at;
+        }
+        if (lastTransactionAt == null || at.isAfter(lastTransactionAt)) {
+            lastTransactionAt = at;
+        }
+    }
+
+    // Getters and Setters
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public double getSentTotal() {
+        return sentTotal;
+    }
+
+    public void setSentTotal(double sentTotal) {
+        this.sentTotal = sentTotal;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    public void setReceivedCount(long receivedCount) {
+        this.receivedCount = receivedCount;
+    }
+
+    public double getReceivedTotal() {
+        return receivedTotal;
+    }
+
+    public void setReceivedTotal(double receivedTotal) {
+        this.receivedTotal = receivedTotal;
+    }
+
+    public LocalDateTime getFirstTransactionAt() {
+        return firstTransactionAt;
+    }
+
+    public void setFirstTransactionAt(LocalDateTime firstTransactionAt) {
+        this.firstTransactionAt = firstTransactionAt;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+
+    public long getDistinctCounterparties() {
+        return distinctCounterparties;
+    }
+
+    public void setDistinctCounterparties(long distinctCounterparties) {
+        this.distinctCounterparties = distinctCounterparties;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
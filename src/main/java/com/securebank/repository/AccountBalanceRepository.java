@@ -0,0 +1,45 @@
+package com.securebank.repository;
+
+import com.securebank.model.AccountBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, AccountBalance.Key> {
+
+    // Single-statement updates: the database applies them atomically, with no read first
+    @Modifying
+    @Query("UPDATE AccountBalance b SET b.balance = b.balance + :amount WHERE b.userId = :userId AND b.slot = :slot")
+    int add(@Param("userId") Long userId, @Param("slot") int slot, @Param("amount") double amount);
+
+    // Touches nothing (returns 0) when the slot does not hold the amount
+    @Modifying
+    @Query("UPDATE AccountBalance b SET b.balance = b.balance - :amount " +
+           "WHERE b.userId = :userId AND b.slot = :slot AND b.balance >= :amount")
+    int subtractIfCovered(@Param("userId") Long userId, @Param("slot") int slot, @Param("amount") double amount);
+
+    // Locked in slot order, so two writers draining the same account cannot deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AccountBalance b WHERE b.userId = :userId ORDER BY b.slot")
+    List<AccountBalance> lockSlots(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(b.balance), 0) FROM AccountBalance b WHERE b.userId = :userId")
+    double sumBalance(@Param("userId") Long userId);
+
+    @Query("SELECT b.userId AS userId, SUM(b.balance) AS balance FROM AccountBalance b " +
+           "WHERE b.userId IN :userIds GROUP BY b.userId")
+    List<AccountBalanceView> sumBalances(@Param("userIds") Collection<Long> userIds);
+
+    long countByUserId(Long userId);
+
+    @Query("SELECT b.userId AS userId, COUNT(b) AS slots FROM AccountBalance b GROUP BY b.userId HAVING COUNT(b) > 1")
+    List<SlotCountView> findSplitAccounts();
+}
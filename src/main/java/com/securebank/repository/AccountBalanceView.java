@@ -0,0 +1,7 @@
+package com.securebank.repository;
+
+// A user's balance: the sum of their slots
+public interface AccountBalanceView {
+    Long getUserId();
+    Double getBalance();
+}
@@ -0,0 +1,34 @@
+package com.securebank.repository;
+
+import com.securebank.model.AccountSummarySlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccountSummarySlotRepository extends JpaRepository<AccountSummarySlot, AccountSummarySlot.Key> {
+
+    // Adds a batch's activity to one slot in a single statement, with no read first; 0 when the slot does not exist yet
+    @Modifying
+    @Query("UPDATE AccountSummarySlot s SET " +
+           "s.sentCount = s.sentCount + :sentCount, s.sentTotal = s.sentTotal + :sentTotal, " +
+           "s.receivedCount = s.receivedCount + :receivedCount, s.receivedTotal = s.receivedTotal + :receivedTotal, " +
+           "s.distinctCounterparties = s.distinctCounterparties + :counterparties, " +
+           "s.firstTransactionAt = CASE WHEN s.firstTransactionAt IS NULL OR s.firstTransactionAt > :firstAt " +
+           "THEN :firstAt ELSE s.firstTransactionAt END, " +
+           "s.lastTransactionAt = CASE WHEN s.lastTransactionAt IS NULL OR s.lastTransactionAt < :lastAt " +
+           "THEN :lastAt ELSE s.lastTransactionAt END " +
+           "WHERE s.userId = :userId AND s.slot = :slot")
+    int add(@Param("userId") Long userId, @Param("slot") int slot,
+            @Param("sentCount") long sentCount, @Param("sentTotal") double sentTotal,
+            @Param("receivedCount") long receivedCount, @Param("receivedTotal") double receivedTotal,
+            @Param("counterparties") long counterparties,
+            @Param("firstAt") LocalDateTime firstAt, @Param("lastAt") LocalDateTime lastAt);
+
+    List<AccountSummarySlot> findByUserId(Long userId);
+}
@@ -0,0 +1,12 @@
+package com.securebank.repository;
+
+import java.time.LocalDateTime;
+
+// Aggregates of one side (sent or received) of a user's transactions, for rebuilding summaries
+public interface AccountTotalsView {
+    Long getUserId();
+    Long getTxCount();
+    Double getAmountTotal();
+    LocalDateTime getFirstAt();
+    LocalDateTime getLastAt();
+}
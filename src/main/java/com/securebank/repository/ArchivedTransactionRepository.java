@@ -0,0 +1,98 @@
+package com.securebank.repository;
+
+import com.securebank.model.ArchivedTransaction;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long>, TransactionTier {
+
+    // Newest archived timestamp, or null while the archive is empty
+    @Query("SELECT MAX(t.timestamp) FROM ArchivedTransaction t")
+    LocalDateTime findMaxTimestamp();
+
+    // Copies the given hot rows into the archive in one statement; the caller deletes them after
+    @Modifying
+    @Query("INSERT INTO ArchivedTransaction (id, sender, receiver, amount, timestamp, fraudRiskScore, scoringStatus) " +
+           "SELECT t.id, t.sender, t.receiver, t.amount, t.timestamp, t.fraudRiskScore, t.scoringStatus " +
+           "FROM Transaction t WHERE t.id IN :ids")
+    int copyFromHot(@Param("ids") List<Long> ids);
+
+    // Same select list as TransactionRepository.SUMMARY_SELECT, over the archive table
+    String SUMMARY_SELECT = "SELECT t.id AS id, s.id AS senderId, s.email AS senderEmail, " +
+            "r.id AS receiverId, r.email AS receiverEmail, t.amount AS amount, t.timestamp AS timestamp, " +
+            "t.fraudRiskScore AS fraudRiskScore, t.scoringStatus AS scoringStatus " +
+            "FROM ArchivedTransaction t JOIN t.sender s JOIN t.receiver r ";
+
+    @Query(SUMMARY_SELECT + "WHERE t.id = :id")
+    Optional<TransactionSummaryView> findSummaryById(@Param("id") Long id);
+
+    // Keyset pages, newest first, exactly as on the hot table
+    @Query(SUMMARY_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPage(Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE t.fraudRiskScore > :score ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findSummariesByFraudRiskScoreGreaterThan(@Param("score") int score);
+
+    @Query(SUMMARY_SELECT + "WHERE t.sender.id = :senderId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPageBySender(@Param("senderId") Long senderId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.sender.id = :senderId AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageBySenderBefore(@Param("senderId") Long senderId, @Param("timestamp") LocalDateTime timestamp,
+                                                        @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE t.receiver.id = :receiverId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPageByReceiver(@Param("receiverId") Long receiverId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.receiver.id = :receiverId AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageByReceiverBefore(@Param("receiverId") Long receiverId, @Param("timestamp") LocalDateTime timestamp,
+                                                          @Param("id") Long id, Pageable pageable);
+
+    // Export rows in ID order through a forward-only cursor; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT +
+           "WHERE t.timestamp >= :from AND t.timestamp < :to " +
+           "AND (:senderId IS NULL OR t.sender.id = :senderId) " +
+           "AND t.fraudRiskScore BETWEEN :minScore AND :maxScore " +
+           "AND (:includePending = true OR t.scoringStatus IS NULL OR t.scoringStatus <> com.securebank.model.ScoringStatus.PENDING) " +
+           "ORDER BY t.id")
+    Stream<TransactionSummaryView> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   @Param("senderId") Long senderId,
+                                                   @Param("minScore") int minScore, @Param("maxScore") int maxScore,
+                                                   @Param("includePending") boolean includePending);
+
+    // Per-user totals of archived transactions, added to the hot totals when rebuilding account summaries
+    @Query("SELECT t.sender.id AS userId, COUNT(t) AS txCount, SUM(t.amount) AS amountTotal, " +
+           "MIN(t.timestamp) AS firstAt, MAX(t.timestamp) AS lastAt FROM ArchivedTransaction t GROUP BY t.sender.id")
+    List<AccountTotalsView> findSentTotalsByUser();
+
+    @Query("SELECT t.receiver.id AS userId, COUNT(t) AS txCount, SUM(t.amount) AS amountTotal, " +
+           "MIN(t.timestamp) AS firstAt, MAX(t.timestamp) AS lastAt FROM ArchivedTransaction t GROUP BY t.receiver.id")
+    List<AccountTotalsView> findReceivedTotalsByUser();
+}
@@ -0,0 +1,7 @@
+package com.securebank.repository;
+
+// A pair of users that have transacted, lower ID first
+public interface CounterpartyPairView {
+    Long getLowUserId();
+    Long getHighUserId();
+}
@@ -0,0 +1,17 @@
+package com.securebank.repository;
+
+import com.securebank.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    // What the account's balance should be; for reconciling against account_balances
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    double sumByAccount(@Param("accountId") Long accountId);
+
+    long countByTransactionId(Long transactionId);
+}
@@ -0,0 +1,7 @@
+package com.securebank.repository;
+
+// How many balance slots an account is split into
+public interface SlotCountView {
+    Long getUserId();
+    Long getSlots();
+}
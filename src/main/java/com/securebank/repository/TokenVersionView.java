@@ -0,0 +1,7 @@
+package com.securebank.repository;
+
+// A user's current token version, for the in-memory token deny-list
+public interface TokenVersionView {
+    Long getUserId();
+    int getTokenVersion();
+}
@@ -0,0 +1,10 @@
+package com.securebank.repository;
+
+import java.time.LocalDateTime;
+
+// Timestamp and amount of a sender's transaction, used to warm velocity tracking
+public interface TransactionActivityView {
+    Long getId();
+    LocalDateTime getTimestamp();
+    double getAmount();
+}
@@ -0,0 +1,10 @@
+package com.securebank.repository;
+
+import java.time.LocalDateTime;
+
+// Just the columns the fraud graph needs from a transaction row
+public interface TransactionEdgeView {
+    Long getSenderId();
+    Long getReceiverId();
+    LocalDateTime getTimestamp();
+}
@@ -1,17 +1,28 @@
 package com.securebank.repository;
 
+import com.securebank.model.ScoringStatus;
 import com.securebank.model.Transaction;
 import com.securebank.model.User;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionTier {
     List<Transaction> findBySenderId(Long senderId);
     List<Transaction> findByReceiverId(Long receiverId);
     List<Transaction> findBySenderIdOrderByTimestampDesc(Long senderId);
@@ -33,4 +44,129 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Get total amount received by a user
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.receiver.id = :receiverId")
     double getTotalAmountReceivedByUser(@Param("receiverId") Long receiverId);
+
+    // Most recent activity of a sender, newest first; the page bounds how many rows are read
+    @Query("SELECT t.id AS id, t.timestamp AS timestamp, t.amount AS amount FROM Transaction t " +
+           "WHERE t.sender.id = :senderId ORDER BY t.timestamp DESC")
+    List<TransactionActivityView> findRecentActivityBySender(@Param("senderId") Long senderId, Pageable pageable);
+
+    // Write back a score computed in the background
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.fraudRiskScore = :score, t.scoringStatus = :status WHERE t.id = :id")
+    int updateFraudScore(@Param("id") Long id, @Param("score") int score, @Param("status") ScoringStatus status);
+
+    // Transactions in the given scoring state after an ID, oldest first
+    List<Transaction> findByScoringStatusAndIdGreaterThanOrderByIdAsc(ScoringStatus status, Long afterId, Pageable pageable);
+
+    // Lowest ID still waiting for a score, or null when none are pending
+    @Query("SELECT MIN(t.id) FROM Transaction t WHERE t.scoringStatus = com.securebank.model.ScoringStatus.PENDING")
+    Long findMinPendingId();
+
+    // Scored rows older than the cutoff, oldest first: the next chunk for the archiver
+    @Query("SELECT t.id FROM Transaction t WHERE t.timestamp < :cutoff " +
+           "AND (t.scoringStatus IS NULL OR t.scoringStatus <> com.securebank.model.ScoringStatus.PENDING) " +
+           "ORDER BY t.timestamp, t.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Which of these IDs are stored, for replaying journal records that may already be
+    @Query("SELECT t.id FROM Transaction t WHERE t.id IN :ids")
+    List<Long> findStoredIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    // Highest transaction ID saved so far (0 when the table is empty)
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM Transaction t")
+    long findMaxId();
+
+    // Select list and joins shared by every TransactionSummaryView query: only the columns
+    // a transaction is shown with, users joined for their emails and nothing else
+    String SUMMARY_SELECT = "SELECT t.id AS id, s.id AS senderId, s.email AS senderEmail, " +
+            "r.id AS receiverId, r.email AS receiverEmail, t.amount AS amount, t.timestamp AS timestamp, " +
+            "t.fraudRiskScore AS fraudRiskScore, t.scoringStatus AS scoringStatus " +
+            "FROM Transaction t JOIN t.sender s JOIN t.receiver r ";
+
+    @Query(SUMMARY_SELECT + "WHERE t.id = :id")
+    Optional<TransactionSummaryView> findSummaryById(@Param("id") Long id);
+
+    // Keyset pages, newest first. The first page has no cursor; every later page starts strictly
+    // after the (timestamp, id) of the previous page's last row, so the index is seeked, never scanned
+    // from the start. The Pageable only caps the row count.
+    @Query(SUMMARY_SELECT + "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPage(Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") Long id,
+                                                Pageable pageable);
+
+    // Every transaction scored above the given risk, newest first
+    @Query(SUMMARY_SELECT + "WHERE t.fraudRiskScore > :score ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findSummariesByFraudRiskScoreGreaterThan(@Param("score") int score);
+
+    @Query(SUMMARY_SELECT + "WHERE t.sender.id = :senderId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPageBySender(@Param("senderId") Long senderId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.sender.id = :senderId AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageBySenderBefore(@Param("senderId") Long senderId, @Param("timestamp") LocalDateTime timestamp,
+                                                        @Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE t.receiver.id = :receiverId ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findFirstPageByReceiver(@Param("receiverId") Long receiverId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+           "WHERE t.receiver.id = :receiverId AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) " +
+           "ORDER BY t.timestamp DESC, t.id DESC")
+    List<TransactionSummaryView> findPageByReceiverBefore(@Param("receiverId") Long receiverId, @Param("timestamp") LocalDateTime timestamp,
+                                                          @Param("id") Long id, Pageable pageable);
+
+    // Export rows in ID order, read through a forward-only cursor 1000 rows per round trip
+    // (MySQL needs useCursorFetch=true to honour the fetch size). Must be consumed inside a transaction.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SUMMARY_SELECT +
+           "WHERE t.timestamp >= :from AND t.timestamp < :to " +
+           "AND (:senderId IS NULL OR t.sender.id = :senderId) " +
+           "AND t.fraudRiskScore BETWEEN :minScore AND :maxScore " +
+           "AND (:includePending = true OR t.scoringStatus IS NULL OR t.scoringStatus <> com.securebank.model.ScoringStatus.PENDING) " +
+           "ORDER BY t.id")
+    Stream<TransactionSummaryView> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   @Param("senderId") Long senderId,
+                                                   @Param("minScore") int minScore, @Param("maxScore") int maxScore,
+                                                   @Param("includePending") boolean includePending);
+
+    // Per-user totals of sent and received transactions, for rebuilding account summaries
+    @Query("SELECT t.sender.id AS userId, COUNT(t) AS txCount, SUM(t.amount) AS amountTotal, " +
+           "MIN(t.timestamp) AS firstAt, MAX(t.timestamp) AS lastAt FROM Transaction t GROUP BY t.sender.id")
+    List<AccountTotalsView> findSentTotalsByUser();
+
+    @Query("SELECT t.receiver.id AS userId, COUNT(t) AS txCount, SUM(t.amount) AS amountTotal, " +
+           "MIN(t.timestamp) AS firstAt, MAX(t.timestamp) AS lastAt FROM Transaction t GROUP BY t.receiver.id")
+    List<AccountTotalsView> findReceivedTotalsByUser();
+
+    // Every pair of users that has transacted, in either direction, once, across both tiers;
+    // must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT " +
+           "CASE WHEN t.sender.id < t.receiver.id THEN t.sender.id ELSE t.receiver.id END AS lowUserId, " +
+           "CASE WHEN t.sender.id < t.receiver.id THEN t.receiver.id ELSE t.sender.id END AS highUserId " +
+           "FROM Transaction t " +
+           "UNION SELECT " +
+           "CASE WHEN a.sender.id < a.receiver.id THEN a.sender.id ELSE a.receiver.id END, " +
+           "CASE WHEN a.sender.id < a.receiver.id THEN a.receiver.id ELSE a.sender.id END " +
+           "FROM ArchivedTransaction a")
+    Stream<CounterpartyPairView> streamCounterpartyPairs();
+
+    // Graph edges for an ID range (fromId exclusive, toId inclusive), used to rebuild the fraud graph in chunks
+    @Query("SELECT t.sender.id AS senderId, t.receiver.id AS receiverId, t.timestamp AS timestamp FROM Transaction t " +
+           "WHERE t.id > :fromId AND t.id <= :toId AND t.timestamp >= :since")
+    List<TransactionEdgeView> findEdgesInIdRange(@Param("fromId") long fromId, @Param("toId") long toId,
+                                                 @Param("since") LocalDateTime since);
 }
@@ -0,0 +1,24 @@
+package com.securebank.repository;
+
+import com.securebank.model.RiskBand;
+import com.securebank.model.ScoringStatus;
+
+import java.time.LocalDateTime;
+
+// The columns a transaction is shown with, read in one join with no User entities loaded
+public interface TransactionSummaryView {
+    Long getId();
+    Long getSenderId();
+    String getSenderEmail();
+    Long getReceiverId();
+    String getReceiverEmail();
+    double getAmount();
+    LocalDateTime getTimestamp();
+    int getFraudRiskScore();
+    ScoringStatus getScoringStatus();
+
+    // PENDING until scored, then the risk band
+    default String getRiskStatus() {
+        return getScoringStatus() == ScoringStatus.PENDING ? "PENDING" : RiskBand.of(getFraudRiskScore()).name();
+    }
+}
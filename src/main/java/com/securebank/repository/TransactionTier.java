@@ -0,0 +1,39 @@
+package com.securebank.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read queries every storage tier of transactions answers the same way: the hot
+ * {@link TransactionRepository} and the {@link ArchivedTransactionRepository}. Each
+ * repository declares the queries against its own table; callers merge the results.
+ */
+public interface TransactionTier {
+
+    Optional<TransactionSummaryView> findSummaryById(Long id);
+
+    List<TransactionSummaryView> findFirstPage(Pageable pageable);
+
+    List<TransactionSummaryView> findPageBefore(LocalDateTime timestamp, Long id, Pageable pageable);
+
+    List<TransactionSummaryView> findFirstPageBySender(Long senderId, Pageable pageable);
+
+    List<TransactionSummaryView> findPageBySenderBefore(Long senderId, LocalDateTime timestamp, Long id, Pageable pageable);
+
+    List<TransactionSummaryView> findFirstPageByReceiver(Long receiverId, Pageable pageable);
+
+    List<TransactionSummaryView> findPageByReceiverBefore(Long receiverId, LocalDateTime timestamp, Long id, Pageable pageable);
+
+    Stream<TransactionSummaryView> streamForExport(LocalDateTime from, LocalDateTime to, Long senderId,
+                                                   int minScore, int maxScore, boolean includePending);
+
+    List<TransactionSummaryView> findSummariesByFraudRiskScoreGreaterThan(int score);
+
+    List<AccountTotalsView> findSentTotalsByUser();
+
+    List<AccountTotalsView> findReceivedTotalsByUser();
+}
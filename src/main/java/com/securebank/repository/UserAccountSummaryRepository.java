@@ -0,0 +1,9 @@
+package com.securebank.repository;
+
+import com.securebank.model.UserAccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserAccountSummaryRepository extends JpaRepository<UserAccountSummary, Long> {
+}
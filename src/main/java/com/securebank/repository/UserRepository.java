@@ -2,12 +2,21 @@ package com.securebank.repository;
 
 import com.securebank.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    // Users who have revoked their tokens at least once, with the lowest token version still accepted
+    @Query("SELECT u.id AS userId, u.tokenVersion AS tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<TokenVersionView> findTokenVersions();
 }
@@ -0,0 +1,109 @@
+package com.securebank.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Per-endpoint concurrency limits, so a login storm holding request threads on password
+ * hashing cannot starve {@code /api/transactions}. A request over its endpoint's limit is
+ * answered 503 with {@code Retry-After} before authentication runs. A limit of 0 leaves
+ * the endpoint unlimited.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Login and register: each one is a BCrypt hash
+    @Value("${security.admission.auth.max-concurrent:32}")
+    private int maxAuth;
+
+    @Value("${security.admission.transactions.max-concurrent:0}")
+    private int maxTransactions;
+
+    @Value("${security.admission.retry-after:1s}")
+    private Duration retryAfter;
+
+    private Semaphore auth;
+    private Semaphore transactions;
+    private Counter authRejected;
+    private Counter transactionsRejected;
+
+    @PostConstruct
+    void init() {
+        auth = maxAuth > 0 ? new Semaphore(maxAuth) : null;
+        transactions = maxTransactions > 0 ? new Semaphore(maxTransactions) : null;
+        authRejected = rejected("auth");
+        transactionsRejected = rejected("transactions");
+    }
+
+    private Counter rejected(String endpoint) {
+        return Counter.builder("securebank.admission.rejected")
+                .description("Requests refused with 503 because their endpoint was at its concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Semaphore limit = null;
+        Counter rejectedCounter = null;
+        if (path.equals("/api/auth/login") || path.equals("/api/auth/register")) {
+            limit = auth;
+            rejectedCounter = authRejected;
+        } else if (path.startsWith("/api/transactions/")) {
+            limit = transactions;
+            rejectedCounter = transactionsRejected;
+        }
+
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            rejectedCounter.increment();
+            rejectBusy(response, retryAfter);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release();
+        }
+    }
+
+    // 503 with Retry-After in whole seconds, at least one
+    private static void rejectBusy(HttpServletResponse response, Duration retryAfter) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter));
+        response.setContentType("text/plain");
+        response.getWriter().write("Server busy, please retry shortly");
+    }
+
+    public static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+}
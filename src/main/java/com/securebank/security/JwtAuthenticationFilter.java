@@ -1,12 +1,19 @@
 package com.securebank.security;
 
+import com.securebank.metrics.PhaseTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +24,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,32 +35,95 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Authenticate from token claims alone; tokens without a user ID still take the lookup
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean stateless;
+
+    private PhaseTimer filterTimer;
+    private Counter authenticated;
+    private Counter rejected;
+    private Counter anonymous;
+
+    @PostConstruct
+    void initMetrics() {
+        filterTimer = PhaseTimer.of(meterRegistry, "securebank.jwt.filter",
+                "Time spent authenticating the bearer token of a request", "jwt");
+        authenticated = authentications("authenticated");
+        rejected = authentications("rejected");
+        anonymous = authentications("anonymous");
+        CaffeineCacheMetrics.monitor(meterRegistry, jwtUtil.claimsCache(), "jwt.claims");
+    }
+
+    private Counter authentications(String result) {
+        return Counter.builder("securebank.jwt.authentications")
+                .description("Requests seen by the JWT filter, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain)
             throws ServletException, IOException {
 
+        long start = System.nanoTime();
+        // A token that fails to parse throws, and counts as rejected
+        Counter outcome = rejected;
+        try {
+            outcome = authenticate(request);
+        } finally {
+            filterTimer.stop(start);
+            outcome.increment();
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Counter authenticate(HttpServletRequest request) {
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            String email = jwtUtil.extractUsername(token);
+            // Signature and expiry are checked once here (or answered from the claims cache)
+            VerifiedClaims claims = jwtUtil.verify(token);
+            String email = claims.subject();
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                UserDetails userDetails = stateless && claims.userId() != null
+                        ? fromClaims(claims)
+                        : userDetailsService.loadUserByUsername(email);
+                Long userId = claims.userId() != null ? claims.userId() : userIdOf(userDetails);
 
-                if (jwtUtil.validateToken(token, userDetails)) {
+                if (email.equals(userDetails.getUsername())
+                        && (userId == null || !tokenDenyList.isRevoked(userId, claims.tokenVersion()))) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    return authenticated;
                 }
             }
+            return rejected;
         }
+        return anonymous;
+    }
 
-        filterChain.doFilter(request, response);
+    // Stateless mode: the signed claims are the principal, no lookup
+    private static UserDetails fromClaims(VerifiedClaims claims) {
+        List<SimpleGrantedAuthority> authorities = claims.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        return new AuthenticatedUser(claims.userId(), claims.subject(), "", authorities);
+    }
+
+    private static Long userIdOf(UserDetails userDetails) {
+        return userDetails instanceof AuthenticatedUser user ? user.getUserId() : null;
     }
 }
@@ -1,20 +1,60 @@
 package com.securebank.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    private static final long DEFAULT_CLAIMS_CACHE_SIZE = 10_000;
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+    static final String ROLES_CLAIM = "roles";
+
     private final String SECRET_KEY = "your-256-bit-secret-your-256-bit-secret"; // use a secure key at least 32 chars
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Both are immutable and thread-safe, so built once
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Verified claims by SHA-256 of the token, each dropped when its token expires. Keyed by digest so
+    // the heap never holds bearer tokens, and a hit skips the HMAC check and JSON parsing.
+    private final Cache<ByteBuffer, VerifiedClaims> verifiedClaims;
+
+    public JwtUtil() {
+        this(DEFAULT_CLAIMS_CACHE_SIZE);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.claims-cache.max-size:10000}") long claimsCacheSize) {
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(Expiry.creating((ByteBuffer digest, VerifiedClaims claims) ->
+                        Duration.between(Instant.now(), claims.expiresAt())))
+                .recordStats()
+                .build();
+    }
+
+    Cache<ByteBuffer, VerifiedClaims> claimsCache() {
+        return verifiedClaims;
     }
 
     public String generateToken(String email) {
@@ -22,50 +62,91 @@ public class JwtUtil {
                 .setSubject(email)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hrs
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // A token that carries everything needed to authenticate without a user lookup
+    public String generateToken(String email, Long userId, int tokenVersion, List<String> roles) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(TOKEN_VERSION_CLAIM, tokenVersion)
+                .claim(ROLES_CLAIM, roles)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hrs
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Checks the token's signature and expiry and returns its claims. A token verified
+     * before is answered from the cache until it expires.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public VerifiedClaims verify(String token) {
+        ByteBuffer digest = digest(token);
+        VerifiedClaims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        Claims claims = extractAllClaims(token);
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        VerifiedClaims verified = new VerifiedClaims(claims.getSubject(),
+                claims.get(USER_ID_CLAIM, Long.class),
+                tokenVersion != null ? tokenVersion : 0,
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+        verifiedClaims.put(digest, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiresAt());
     }
 
+    // Any other claim: always a full parse, not cached
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            // Every token we issue expires; one that doesn't wasn't issued here
+            throw new MalformedJwtException("Token has no expiration");
+        }
+        return claims;
     }
 
     public boolean validateToken(String token, org.springframework.security.core.userdetails.UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final VerifiedClaims claims = verify(token);
+        return (claims.subject().equals(userDetails.getUsername()) && !claims.isExpired());
     }
 
     
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
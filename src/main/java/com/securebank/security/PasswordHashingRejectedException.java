@@ -0,0 +1,18 @@
+package com.securebank.security;
+
+import java.time.Duration;
+
+// Thrown when the password hashing pool is saturated; answered with 503 and Retry-After
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Password hashing is at capacity, please retry shortly");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
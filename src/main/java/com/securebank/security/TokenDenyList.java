@@ -0,0 +1,60 @@
+package com.securebank.security;
+
+import com.securebank.repository.TokenVersionView;
+import com.securebank.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token revocation without a per-request lookup: the lowest token version still accepted
+ * for every user who ever revoked, held in memory. Users who never revoked have no entry.
+ *
+ * Revocations on this instance apply once committed; those made on other instances are picked
+ * up by the bulk refresh every {@code jwt.revocation.refresh-interval}.
+ */
+@Component
+public class TokenDenyList implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDenyList.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<Long, Integer> minVersions = new ConcurrentHashMap<>();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:30s}",
+               initialDelayString = "${jwt.revocation.refresh-interval:30s}")
+    public void refresh() {
+        // Merged into the live map, never swapped for it, so a revocation made here while
+        // the query runs is kept, and an older row read by the query cannot lower a version
+        int rows = 0;
+        for (TokenVersionView row : userRepository.findTokenVersions()) {
+            minVersions.merge(row.getUserId(), row.getTokenVersion(), Math::max);
+            rows++;
+        }
+        log.debug("Token deny-list refreshed: {} users", rows);
+    }
+
+    // Rejects every token of the user issued below the given version
+    public void revokeBelow(Long userId, int version) {
+        minVersions.merge(userId, version, Math::max);
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Integer min = minVersions.get(userId);
+        return min != null && tokenVersion < min;
+    }
+}
@@ -0,0 +1,14 @@
+package com.securebank.security;
+
+import java.time.Instant;
+import java.util.List;
+
+// The claims of a token whose signature has been checked; subject is the user's email.
+// userId is null on tokens issued before IDs were embedded (tokenVersion is then 0).
+public record VerifiedClaims(String subject, Long userId, int tokenVersion, List<String> roles,
+                             Instant issuedAt, Instant expiresAt) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
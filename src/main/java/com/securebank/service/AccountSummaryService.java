@@ -0,0 +1,337 @@
+package com.securebank.service;
+
+import com.securebank.model.AccountCounterparty;
+import com.securebank.model.AccountSummarySlot;
+import com.securebank.model.Transaction;
+import com.securebank.model.UserAccountSummary;
+import com.securebank.repository.AccountCounterpartyRepository;
+import com.securebank.repository.AccountSummarySlotRepository;
+import com.securebank.repository.AccountTotalsView;
+import com.securebank.repository.CounterpartyPairView;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.TransactionTier;
+import com.securebank.repository.UserAccountSummaryRepository;
+import com.securebank.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Maintains {@link UserAccountSummary} rows so per-user analytics (counts, totals,
+ * first/last activity, distinct counterparties) are a primary-key read.
+ *
+ * {@link #saveWithSummaries} inserts transactions and folds them into both parties'
+ * summaries in one database transaction, retrying on version conflicts. Hot accounts
+ * (split into balance slots by {@link LedgerService}) would conflict on nearly every
+ * transfer, so their activity goes to {@link AccountSummarySlot} rows instead, one random
+ * slot per transfer, updated in place like their balances.
+ * {@link #rebuild()} recomputes every summary from the transactions table, on startup
+ * ({@code account-summary.rebuild-on-startup}, and always while the summary table is
+ * still empty but users exist, i.e. the first start after an upgrade) or on a schedule
+ * ({@code account-summary.rebuild-cron}); it is meant for quiet periods, since
+ * transactions committed while it runs may be counted against the old rows.
+ */
+@Service
+@Order(3)
+public class AccountSummaryService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountSummaryService.class);
+
+    private static final int REBUILD_FLUSH_INTERVAL = 1000;
+
+    @Autowired
+    private UserAccountSummaryRepository summaryRepository;
+
+    @Autowired
+    private AccountCounterpartyRepository counterpartyRepository;
+
+    @Autowired
+    private AccountSummarySlotRepository slotRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTiers transactionTiers;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${account-summary.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${account-summary.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * Saves the transactions and updates the account summaries of everyone involved,
+     * atomically. Another writer committing to the same summary first makes the whole
+     * unit roll back and run again, up to {@code account-summary.max-attempts} times.
+     */
+    public List<Transaction> saveWithSummaries(List<Transaction> transactions) {
+        return saveWithSummaries(transactions, saved -> { });
+    }
+
+    // As above, running alsoInTransaction on the saved rows before the commit
+    public List<Transaction> saveWithSummaries(List<Transaction> transactions,
+                                               Consumer<List<Transaction>> alsoInTransaction) {
+        return withRetries(transactions, true, () -> {
+            List<Transaction> saved = transactionRepository.saveAll(transactions);
+            record(saved);
+            alsoInTransaction.accept(saved);
+            return saved;
+        });
+    }
+
+    // As saveWithSummaries, for rows with assigned IDs that insertAndPost writes itself (the journal flusher)
+    public void recordWithSummaries(List<Transaction> transactions, Consumer<List<Transaction>> insertAndPost) {
+        withRetries(transactions, false, () -> {
+            insertAndPost.accept(transactions);
+            record(transactions);
+            return transactions;
+        });
+    }
+
+    private List<Transaction> withRetries(List<Transaction> transactions, boolean generatedIds,
+                                          Supplier<List<Transaction>> unit) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> unit.get());
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException
+                     | PessimisticLockingFailureException e) {
+                // Version conflict, two writers creating the same summary or pair row at once,
+                // or the losing side of a deadlock on balance rows
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Account summary conflict, retrying (attempt {})", attempt, e);
+                if (generatedIds) {
+                    // The rolled-back IDs were never stored; let the retry draw new ones
+                    transactions.forEach(tx -> tx.setId(null));
+                }
+            }
+        }
+    }
+
+    // Folds saved transactions into their parties' summaries, inside the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Transaction> transactions) {
+        // What the batch adds per user, written in user order so hot slots are locked in a fixed order
+        Map<Long, UserAccountSummary> deltas = new TreeMap<>();
+        Set<AccountCounterparty.Key> newPairs = new HashSet<>();
+        for (Transaction tx : transactions) {
+            Long senderId = tx.getSender().getId();
+            Long receiverId = tx.getReceiver().getId();
+            UserAccountSummary sender = deltas.computeIfAbsent(senderId, UserAccountSummary::new);
+            UserAccountSummary receiver = deltas.computeIfAbsent(receiverId, UserAccountSummary::new);
+            sender.recordSent(tx.getAmount(), tx.getTimestamp());
+            receiver.recordReceived(tx.getAmount(), tx.getTimestamp());
+
+            AccountCounterparty.Key pair = AccountCounterparty.Key.of(senderId, receiverId);
+            if (!newPairs.contains(pair) && !counterpartyRepository.existsById(pair)) {
+                entityManager.persist(new AccountCounterparty(pair));
+                newPairs.add(pair);
+                sender.addCounterparty();
+                receiver.addCounterparty();
+            }
+        }
+        for (UserAccountSummary delta : deltas.values()) {
+            if (ledgerService.slotsOf(delta.getUserId()) > 1) {
+                addToSlot(delta);
+            } else {
+                loadOrCreate(delta.getUserId()).add(delta);
+            }
+        }
+    }
+
+    private void addToSlot(UserAccountSummary delta) {
+        Long userId = delta.getUserId();
+        int slot = ThreadLocalRandom.current().nextInt(ledgerService.slotsOf(userId));
+        if (addTo(slot, delta) == 0) {
+            // First activity since the split: create every slot at once and try again
+            createSlots(userId);
+            if (addTo(slot, delta) == 0) {
+                // Another writer's slots are not committed yet; run the unit again
+                throw new OptimisticLockingFailureException("Summary slots of account " + userId + " not created yet");
+            }
+        }
+    }
+
+    private int addTo(int slot, UserAccountSummary delta) {
+        return slotRepository.add(delta.getUserId(), slot, delta.getSentCount(), delta.getSentTotal(),
+                delta.getReceivedCount(), delta.getReceivedTotal(), delta.getDistinctCounterparties(),
+                delta.getFirstTransactionAt(), delta.getLastTransactionAt());
+    }
+
+    // Empty slots, committed on their own so the caller's unit never races on their keys
+    private void createSlots(Long userId) {
+        TransactionTemplate slotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        slotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            slotTemplate.executeWithoutResult(status -> {
+                Set<Integer> existing = new HashSet<>();
+                slotRepository.findByUserId(userId).forEach(row -> existing.add(row.getSlot()));
+                for (int slot = 0; slot < ledgerService.slotsOf(userId); slot++) {
+                    if (!existing.contains(slot)) {
+                        // Persisted, not saved: a merge would overwrite a slot another writer just created
+                        entityManager.persist(new AccountSummarySlot(userId, slot));
+                    }
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another writer created them first
+        }
+    }
+
+    // Called when a user registers, so later inserts never race to create the row
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createFor(Long userId) {
+        entityManager.persist(new UserAccountSummary(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public UserAccountSummary getSummary(Long userId) {
+        UserAccountSummary stored = summaryRepository.findById(userId).orElseGet(() -> new UserAccountSummary(userId));
+        List<AccountSummarySlot> slots = slotRepository.findByUserId(userId);
+        if (slots.isEmpty()) {
+            return stored;
+        }
+        // A copy, so the managed row is never changed by a read
+        UserAccountSummary summary = new UserAccountSummary(userId);
+        summary.add(stored);
+        slots.forEach(summary::add);
+        return summary;
+    }
+
+    private UserAccountSummary loadOrCreate(Long userId) {
+        return summaryRepository.findById(userId).orElseGet(() -> {
+            // Users added outside registration, e.g. imported, until the next rebuild
+            UserAccountSummary summary = new UserAccountSummary(userId);
+            entityManager.persist(summary);
+            return summary;
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup) {
+            rebuild();
+        } else if (summaryRepository.count() == 0 && userRepository.count() > 0) {
+            // Users from before summaries existed would otherwise start from zero
+            log.info("Account summary table is empty, building it from existing transactions");
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${account-summary.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes every summary and counterparty pair from both transaction tiers with
+     * grouped queries, replacing what is stored. Memory grows with the number of users,
+     * not transactions: pairs are streamed and written in batches.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        int users = transactionTemplate.execute(status -> {
+            counterpartyRepository.deleteAllInBatch();
+            slotRepository.deleteAllInBatch();
+            summaryRepository.deleteAllInBatch();
+            // Bulk deletes bypass the persistence context; drop what it still holds
+            entityManager.clear();
+
+            Map<Long, UserAccountSummary> summaries = new HashMap<>();
+            for (Long userId : userRepository.findAllIds()) {
+                summaries.put(userId, new UserAccountSummary(userId));
+            }
+            // Archived and hot totals add up; the archive holds each user's oldest rows
+            for (TransactionTier tier : transactionTiers.all()) {
+                for (AccountTotalsView sent : tier.findSentTotalsByUser()) {
+                    UserAccountSummary summary = summaries.computeIfAbsent(sent.getUserId(), UserAccountSummary::new);
+                    summary.setSentCount(summary.getSentCount() + sent.getTxCount());
+                    summary.setSentTotal(summary.getSentTotal() + sent.getAmountTotal());
+                    widen(summary, sent);
+                }
+                for (AccountTotalsView received : tier.findReceivedTotalsByUser()) {
+                    UserAccountSummary summary = summaries.computeIfAbsent(received.getUserId(), UserAccountSummary::new);
+                    summary.setReceivedCount(summary.getReceivedCount() + received.getTxCount());
+                    summary.setReceivedTotal(summary.getReceivedTotal() + received.getAmountTotal());
+                    widen(summary, received);
+                }
+            }
+
+            int written = 0;
+            try (Stream<CounterpartyPairView> pairs = transactionRepository.streamCounterpartyPairs()) {
+                Iterator<CounterpartyPairView> iterator = pairs.iterator();
+                while (iterator.hasNext()) {
+                    CounterpartyPairView pair = iterator.next();
+                    entityManager.persist(new AccountCounterparty(
+                            new AccountCounterparty.Key(pair.getLowUserId(), pair.getHighUserId())));
+                    summaries.computeIfAbsent(pair.getLowUserId(), UserAccountSummary::new).addCounterparty();
+                    summaries.computeIfAbsent(pair.getHighUserId(), UserAccountSummary::new).addCounterparty();
+                    flushEvery(++written);
+                }
+            }
+            for (UserAccountSummary summary : summaries.values()) {
+                entityManager.persist(summary);
+                flushEvery(++written);
+            }
+            return summaries.size();
+        });
+        log.info("Rebuilt {} account summaries in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void widen(UserAccountSummary summary, AccountTotalsView totals) {
+        if (summary.getFirstTransactionAt() == null || totals.getFirstAt().isBefore(summary.getFirstTransactionAt())) {
+            summary.setFirstTransactionAt(totals.getFirstAt());
+        }
+        if (summary.getLastTransactionAt() == null || totals.getLastAt().isAfter(summary.getLastTransactionAt())) {
+            summary.setLastTransactionAt(totals.getLastAt());
+        }
+    }
+
+    // Keeps the persistence context small while writing many rows in one transaction
+    private void flushEvery(int written) {
+        if (written % REBUILD_FLUSH_INTERVAL == 0) {
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+}
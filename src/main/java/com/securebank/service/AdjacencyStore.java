@@ -0,0 +1,249 @@
+package com.securebank.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Primitive, thread-safe adjacency storage behind {@link FraudGraph}.
+ *
+ * User IDs are remapped to dense int node numbers through an open-addressing
+ * long -> int table, and each node keeps its distinct receivers in growable
+ * int arrays, together with the epoch minute the edge was last used. Node
+ * creation is serialized by a {@link StampedLock}; edge writes take one of a
+ * fixed set of striped locks, so writers on different senders rarely contend.
+ * Readers never lock.
+ *
+ * Readers see consistent state because a node's arrays and size are published
+ * together as one immutable {@link Edges} view. Appends write into spare
+ * capacity beyond the published size and then publish a new view; eviction
+ * builds compacted arrays and publishes a view over them. The only in-place
+ * change to a published slot is moving an edge's stamp forward.
+ */
+final class AdjacencyStore {
+
+    private static final int STRIPES = 64;
+
+    /** Published view of a node's edges; slots below {@code size} are always valid. */
+    static final class Edges {
+        static final Edges EMPTY = new Edges(new int[0], new int[0], 0);
+
+        final int[] targets;
+        final int[] stamps;
+        final int size;
+
+        Edges(int[] targets, int[] stamps, int size) {
+            this.targets = targets;
+            this.stamps = stamps;
+            this.size = size;
+        }
+
+        int liveCount(int cutoff) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                if (stamps[i] >= cutoff) {
+                    live++;
+                }
+            }
+            return live;
+        }
+    }
+
+    private static final class Adjacency {
+        volatile Edges edges = Edges.EMPTY;
+    }
+
+    private final StampedLock nodeLock = new StampedLock();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // userId -> node + 1 (0 marks an empty slot); replaced wholesale on resize
+    private IdTable table = new IdTable(1024);
+
+    // node -> userId and node -> adjacency; only grow, only under nodeLock
+    private volatile long[] userIds = new long[512];
+    private volatile Adjacency[] nodes = new Adjacency[512];
+    private volatile int nodeCount;
+
+    AdjacencyStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /** Returns the node for a user, or -1 if the user has never sent or received. */
+    int nodeOf(long userId) {
+        long stamp = nodeLock.tryOptimisticRead();
+        int node = table.probe(userId);
+        if (nodeLock.validate(stamp)) {
+            return node;
+        }
+        stamp = nodeLock.readLock();
+        try {
+            return table.probe(userId);
+        } finally {
+            nodeLock.unlockRead(stamp);
+        }
+    }
+
+    int getOrCreateNode(long userId) {
+        int node = nodeOf(userId);
+        if (node >= 0) {
+            return node;
+        }
+        long stamp = nodeLock.writeLock();
+        try {
+            node = table.probe(userId);
+            if (node >= 0) {
+                return node;
+            }
+            node = nodeCount;
+            if (node == nodes.length) {
+                userIds = Arrays.copyOf(userIds, node * 2);
+                nodes = Arrays.copyOf(nodes, node * 2);
+            }
+            userIds[node] = userId;
+            nodes[node] = new Adjacency();
+            if ((node + 1) * 2 > table.keys.length) {
+                IdTable grown = new IdTable(table.keys.length * 2);
+                for (int i = 0; i < node; i++) {
+                    grown.insert(userIds[i], i);
+                }
+                table = grown;
+            }
+            table.insert(userId, node);
+            nodeCount = node + 1;
+            return node;
+        } finally {
+            nodeLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds from -> to stamped with the given epoch minute, or moves the stamp of an
+     * existing edge forward. Returns true when the edge is new.
+     */
+    boolean addEdge(int from, int to, int stamp) {
+        Adjacency adjacency = nodes[from];
+        ReentrantLock lock = stripes[from & (STRIPES - 1)];
+        lock.lock();
+        try {
+            Edges edges = adjacency.edges;
+            int size = edges.size;
+            for (int i = 0; i < size; i++) {
+                if (edges.targets[i] == to) {
+                    if (edges.stamps[i] < stamp) {
+                        edges.stamps[i] = stamp;
+                    }
+                    return false;
+                }
+            }
+            int[] targets = edges.targets;
+            int[] stamps = edges.stamps;
+            if (size == targets.length) {
+                int capacity = Math.max(4, size + (size >> 1));
+                targets = Arrays.copyOf(targets, capacity);
+                stamps = Arrays.copyOf(stamps, capacity);
+            }
+            targets[size] = to;
+            stamps[size] = stamp;
+            adjacency.edges = new Edges(targets, stamps, size + 1);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops edges stamped before the cutoff from up to {@code count} nodes starting
+     * at {@code fromNode}. Returns the number of edges removed.
+     */
+    int evictBefore(int cutoff, int fromNode, int count) {
+        int end = Math.min(nodeCount, fromNode + count);
+        int evicted = 0;
+        for (int node = fromNode; node < end; node++) {
+            Adjacency adjacency = nodes[node];
+            Edges edges = adjacency.edges;
+            if (edges.liveCount(cutoff) == edges.size) {
+                continue;
+            }
+            ReentrantLock lock = stripes[node & (STRIPES - 1)];
+            lock.lock();
+            try {
+                edges = adjacency.edges;
+                int live = edges.liveCount(cutoff);
+                if (live == 0) {
+                    adjacency.edges = Edges.EMPTY;
+                } else {
+                    int[] targets = new int[live];
+                    int[] stamps = new int[live];
+                    int next = 0;
+                    for (int i = 0; i < edges.size; i++) {
+                        if (edges.stamps[i] >= cutoff) {
+                            targets[next] = edges.targets[i];
+                            stamps[next++] = edges.stamps[i];
+                        }
+                    }
+                    adjacency.edges = new Edges(targets, stamps, live);
+                }
+                evicted += edges.size - live;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return evicted;
+    }
+
+    Edges edges(int node) {
+        return nodes[node].edges;
+    }
+
+    long userIdOf(int node) {
+        return userIds[node];
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    /** Open-addressing long -> int table; keys and values always share one capacity. */
+    private static final class IdTable {
+        final long[] keys;
+        final int[] values;
+
+        IdTable(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+        }
+
+        int probe(long userId) {
+            int mask = keys.length - 1;
+            int slot = mix(userId) & mask;
+            for (int i = 0; i <= mask; i++) {
+                int value = values[slot];
+                if (value == 0) {
+                    return -1;
+                }
+                if (keys[slot] == userId) {
+                    return value - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insert(long userId, int node) {
+            int mask = keys.length - 1;
+            int slot = mix(userId) & mask;
+            while (values[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = userId;
+            values[slot] = node + 1;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,134 @@
+package com.securebank.service;
+
+import com.securebank.model.ScoringStatus;
+import com.securebank.model.Transaction;
+import com.securebank.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background fraud scoring for the opt-in async mode ({@code fraud.scoring.async.enabled}).
+ *
+ * Transactions are saved as {@link ScoringStatus#PENDING} and scored on a fixed
+ * number of virtual threads, then the score is written back. At most
+ * {@code fraud.scoring.async.queue-capacity} transactions may be waiting or running;
+ * callers reserve a slot first and score synchronously when none is free.
+ * Rows left PENDING by a crash or shutdown are scored on the next startup,
+ * after the fraud graph has been restored.
+ */
+@Service
+@Order(2)
+public class AsyncFraudScorer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncFraudScorer.class);
+
+    @Autowired
+    private FraudScoringService fraudScoringService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SenderThrottle senderThrottle;
+
+    @Value("${fraud.scoring.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.scoring.async.threads:8}")
+    private int threads;
+
+    @Value("${fraud.scoring.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private Semaphore slots;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(queueCapacity);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofVirtual().name("fraud-scoring-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Reserves room for one background scoring; false means the caller must score inline. */
+    public boolean tryReserve() {
+        return enabled && slots.tryAcquire();
+    }
+
+    // Gives back a reservation that was not used, e.g. because the save failed
+    public void release() {
+        slots.release();
+    }
+
+    /** Scores a saved PENDING transaction in the background, using a slot from {@link #tryReserve()}. */
+    public void submit(Transaction saved) {
+        executor.execute(() -> {
+            try {
+                score(saved);
+            } catch (RuntimeException e) {
+                // Stays PENDING and is picked up again on the next startup
+                log.error("Background fraud scoring failed for transaction {}", saved.getId(), e);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int recovered = 0;
+        long lastId = 0;
+        List<Transaction> pending;
+        do {
+            pending = transactionRepository.findByScoringStatusAndIdGreaterThanOrderByIdAsc(
+                    ScoringStatus.PENDING, lastId, PageRequest.of(0, 500));
+            for (Transaction tx : pending) {
+                lastId = tx.getId();
+                try {
+                    score(tx);
+                    recovered++;
+                } catch (RuntimeException e) {
+                    log.error("Could not score pending transaction {}", tx.getId(), e);
+                }
+            }
+        } while (!pending.isEmpty());
+        if (recovered > 0) {
+            log.info("Scored {} transactions left pending by a previous run", recovered);
+        }
+    }
+
+    private void score(Transaction tx) {
+        int fraudScore = fraudScoringService.calculateFraudScore(tx);
+        transactionRepository.updateFraudScore(tx.getId(), fraudScore, ScoringStatus.SCORED);
+        // The row was committed before scoring began
+        fraudScoringService.recordAccepted(List.of(tx));
+        senderThrottle.recordScore(tx.getSender().getId(), fraudScore);
+    }
+}
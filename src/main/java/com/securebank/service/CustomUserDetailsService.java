@@ -1,28 +1,58 @@
 package com.securebank.service;
 
+import com.securebank.metrics.PhaseTimer;
 import com.securebank.model.User;
-import com.securebank.repository.UserRepository;
+import com.securebank.security.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    // May deposit money from outside the bank into any account
+    public static final String FUNDING_ROLE = "ROLE_FUNDING";
+
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
-    private UserRepository userRepository;
+    private MeterRegistry meterRegistry;
+
+    // Emails of the accounts that hold the funding role; empty leaves deposits to internal callers
+    @Value("${ledger.funding-accounts:}")
+    private Set<String> fundingAccounts = Set.of();
+
+    private PhaseTimer loadTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        loadTimer = PhaseTimer.of(meterRegistry, "securebank.user.details",
+                "Time spent loading the user behind an authenticated request", "user-details");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        User user = loadTimer.record(() -> userCache.findByEmail(email))
                         .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                Collections.emptyList()  // No roles yet
+                rolesOf(user.getEmail()).stream().map(SimpleGrantedAuthority::new).toList()
         );
     }
+
+    // Also written into tokens, so stateless mode grants the same roles without a lookup
+    public List<String> rolesOf(String email) {
+        return fundingAccounts.contains(email) ? List.of(FUNDING_ROLE) : List.of();
+    }
 }
@@ -1,56 +1,335 @@
 package com.securebank.service;
 
 import com.securebank.model.Transaction;
-import com.securebank.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class FraudGraph {
 
-    // Graph represented as adjacency list: sender -> set of receivers
-    private final Map<Long, Set<Long>> graph = new HashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(FraudGraph.class);
 
-    // Add an edge for each transaction (sender -> receiver)
+    // Graph represented as primitive adjacency lists: sender node -> distinct receiver nodes
+    private final AdjacencyStore store = new AdjacencyStore();
+
+    // Longest cycle (in edges) we look for; bounds the work done per transaction
+    @Value("${fraud.graph.cycle-max-hops:6}")
+    private int maxCycleHops = 6;
+
+    // Most edges one cycle search may examine; past this the search gives up and reports no cycle
+    @Value("${fraud.graph.cycle-max-edges:2000}")
+    private int maxCycleEdges = 2_000;
+
+    // Searches that gave up at maxCycleEdges before finding a cycle or running out of hops
+    private final LongAdder truncatedSearches = new LongAdder();
+
+    // Edges not used for longer than this no longer count toward scoring and are evicted
+    @Value("${fraud.graph.edge-retention:30d}")
+    private Duration edgeRetention = Duration.ofDays(30);
+
+    // Number of nodes the background sweeper visits per run
+    @Value("${fraud.graph.sweep-batch-size:10000}")
+    private int sweepBatchSize = 10_000;
+
+    // Next node the sweeper will visit; only touched by the sweeper
+    private int sweepCursor;
+
+    // Add an edge for each transaction (sender -> receiver); safe to call from many threads
     public void addTransactionEdge(Transaction tx) {
-        Long senderId = tx.getSender().getId();
-        Long receiverId = tx.getReceiver().getId();
+        addEdge(tx.getSender().getId(), tx.getReceiver().getId(), tx.getTimestamp());
+    }
 
-        graph.computeIfAbsent(senderId, k -> new HashSet<>()).add(receiverId);
+    // Add an edge from raw transaction data; re-adding a known edge only refreshes its timestamp
+    public void addEdge(Long senderId, Long receiverId, LocalDateTime timestamp) {
+        int stamp = toEpochMinute(timestamp);
+        if (stamp < liveCutoff()) {
+            return;
+        }
+        int sender = store.getOrCreateNode(senderId);
+        int receiver = store.getOrCreateNode(receiverId);
+
+        store.addEdge(sender, receiver, stamp);
     }
 
-    // Detect cycles starting from a given user using DFS
-    public boolean hasSuspiciousCycle(Long userId) {
-        Set<Long> visited = new HashSet<>();
-        Set<Long> recursionStack = new HashSet<>();
-        return dfsCycleCheck(userId, visited, recursionStack);
+    /**
+     * Checks whether the edge sender -> receiver closes a cycle, i.e. whether the
+     * sender can be reached again from the receiver within the configured hop limit.
+     * Only the neighbourhood of the new edge is searched, and at most
+     * {@code fraud.graph.cycle-max-edges} edges of it, so the cost is bounded however
+     * large or dense the graph grows. A search cut short counts as no cycle.
+     */
+    public boolean closesCycle(Long senderId, Long receiverId) {
+        return closesCycle(senderId, receiverId, List.of());
     }
 
-    private boolean dfsCycleCheck(Long current, Set<Long> visited, Set<Long> stack) {
-        if (stack.contains(current)) {
-            // Cycle detected
+    // As above, also following the edges of earlier batch items, which are added once they are stored
+    public boolean closesCycle(Long senderId, Long receiverId, List<Transaction> earlier) {
+        if (senderId.equals(receiverId)) {
             return true;
         }
-        if (visited.contains(current)) {
+        Map<Integer, List<Integer>> pending = pendingEdges(earlier);
+        int sender = pending.isEmpty() ? store.nodeOf(senderId) : store.getOrCreateNode(senderId);
+        int receiver = pending.isEmpty() ? store.nodeOf(receiverId) : store.getOrCreateNode(receiverId);
+        if (sender < 0 || receiver < 0) {
             return false;
         }
+        // The edge itself is one hop, so the path back may use at most maxCycleHops - 1
+        NodeQueue frontier = new NodeQueue();
+        frontier.add(receiver);
+        return isReachable(frontier, sender, maxCycleHops - 1, liveCutoff(), pending);
+    }
 
-        visited.add(current);
-        stack.add(current);
+    // Sender node -> receiver nodes of transfers not in the graph yet; nodes are created for them
+    private Map<Integer, List<Integer>> pendingEdges(List<Transaction> earlier) {
+        if (earlier.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, List<Integer>> pending = new HashMap<>();
+        for (Transaction tx : earlier) {
+            int sender = store.getOrCreateNode(tx.getSender().getId());
+            int receiver = store.getOrCreateNode(tx.getReceiver().getId());
+            pending.computeIfAbsent(sender, node -> new ArrayList<>()).add(receiver);
+        }
+        return pending;
+    }
 
-        Set<Long> neighbors = graph.getOrDefault(current, Collections.emptySet());
-        for (Long neighbor : neighbors) {
-            if (dfsCycleCheck(neighbor, visited, stack)) {
+    // Detect whether the given user sits on a cycle of at most maxCycleHops live edges
+    public boolean hasSuspiciousCycle(Long userId) {
+        int node = store.nodeOf(userId);
+        if (node < 0) {
+            return false;
+        }
+        int cutoff = liveCutoff();
+        // One search from all live neighbours at once, so the edge budget covers the whole check
+        NodeQueue frontier = new NodeQueue();
+        AdjacencyStore.Edges edges = store.edges(node);
+        for (int i = 0; i < edges.size; i++) {
+            if (edges.stamps[i] < cutoff) {
+                continue;
+            }
+            if (edges.targets[i] == node) {
                 return true;
             }
+            frontier.add(edges.targets[i]);
+        }
+        return isReachable(frontier, node, maxCycleHops - 1, cutoff, Map.of());
+    }
+
+    /**
+     * Iterative breadth-first search over live edges from the nodes in the frontier,
+     * bounded by depth so long chains cannot exhaust the stack, and by
+     * {@code maxCycleEdges} so dense neighbourhoods cannot make one check expensive.
+     */
+    private boolean isReachable(NodeQueue frontier, int target, int maxDepth, int cutoff,
+                                Map<Integer, List<Integer>> pending) {
+        if (maxDepth <= 0) {
+            return false;
+        }
+        int budget = maxCycleEdges;
+
+        for (int depth = 0; depth < maxDepth && frontier.hasNext(); depth++) {
+            for (int i = frontier.remainingInLevel(); i > 0; i--) {
+                int node = frontier.next();
+                for (int neighbor : pending.getOrDefault(node, List.of())) {
+                    if (neighbor == target) {
+                        return true;
+                    }
+                    frontier.add(neighbor);
+                }
+                AdjacencyStore.Edges edges = store.edges(node);
+                for (int j = 0; j < edges.size; j++) {
+                    if (--budget < 0) {
+                        truncatedSearches.increment();
+                        return false;
+                    }
+                    if (edges.stamps[j] < cutoff) {
+                        continue;
+                    }
+                    int neighbor = edges.targets[j];
+                    if (neighbor == target) {
+                        return true;
+                    }
+                    frontier.add(neighbor);
+                }
+            }
         }
-        stack.remove(current);
         return false;
     }
 
-    // Get out-degree (number of distinct receivers from this sender)
+    // Get out-degree (number of distinct receivers this sender paid within the retention window)
     public int getOutDegree(Long userId) {
-        return graph.getOrDefault(userId, Collections.emptySet()).size();
+        int node = store.nodeOf(userId);
+        return node < 0 ? 0 : store.edges(node).liveCount(liveCutoff());
+    }
+
+    // Out-degree the sender will have once transfers to these receivers are stored as well
+    public int getOutDegree(Long userId, Collection<Long> newReceiverIds) {
+        int node = store.nodeOf(userId);
+        int cutoff = liveCutoff();
+        int degree = node < 0 ? 0 : store.edges(node).liveCount(cutoff);
+        Set<Long> counted = new HashSet<>();
+        for (Long receiverId : newReceiverIds) {
+            if (counted.add(receiverId) && !hasLiveEdge(node, store.nodeOf(receiverId), cutoff)) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    private boolean hasLiveEdge(int from, int to, int cutoff) {
+        if (from < 0 || to < 0) {
+            return false;
+        }
+        AdjacencyStore.Edges edges = store.edges(from);
+        for (int i = 0; i < edges.size; i++) {
+            if (edges.targets[i] == to && edges.stamps[i] >= cutoff) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evicts expired edges from the next batch of nodes. Runs in the background so
+     * the graph stays bounded under steady traffic; each run only touches
+     * {@code fraud.graph.sweep-batch-size} nodes and scoring never waits for it.
+     */
+    @Scheduled(fixedDelayString = "${fraud.graph.sweep-interval:1s}")
+    public void evictExpiredEdges() {
+        int nodeCount = store.nodeCount();
+        if (nodeCount == 0) {
+            return;
+        }
+        if (sweepCursor >= nodeCount) {
+            sweepCursor = 0;
+        }
+        int evicted = store.evictBefore(liveCutoff(), sweepCursor, sweepBatchSize);
+        sweepCursor += sweepBatchSize;
+        if (evicted > 0) {
+            log.debug("Evicted {} expired fraud graph edges", evicted);
+        }
+    }
+
+    // Writes the live edges to a memory-mapped snapshot file, tagged with the caller's watermark
+    public void writeSnapshot(Path path, long watermark) throws IOException {
+        FraudGraphSnapshot.write(store, watermark, liveCutoff(), path);
+    }
+
+    // Loads the still-live edges of a snapshot and returns its watermark
+    public long loadSnapshot(Path path) throws IOException {
+        return FraudGraphSnapshot.read(store, liveCutoff(), path);
+    }
+
+    // Oldest transaction time that still counts toward scoring
+    public LocalDateTime retentionStart() {
+        return LocalDateTime.now().minus(edgeRetention);
+    }
+
+    public long getTruncatedSearches() {
+        return truncatedSearches.sum();
+    }
+
+    public void setMaxCycleHops(int maxCycleHops) {
+        this.maxCycleHops = maxCycleHops;
+    }
+
+    public void setMaxCycleEdges(int maxCycleEdges) {
+        this.maxCycleEdges = maxCycleEdges;
+    }
+
+    public void setEdgeRetention(Duration edgeRetention) {
+        this.edgeRetention = edgeRetention;
+    }
+
+    // Oldest epoch minute an edge may carry and still count
+    private int liveCutoff() {
+        return (int) ((System.currentTimeMillis() - edgeRetention.toMillis()) / 60_000);
+    }
+
+    private static int toEpochMinute(LocalDateTime timestamp) {
+        return (int) (timestamp.atZone(ZoneId.systemDefault()).toEpochSecond() / 60);
+    }
+
+    /**
+     * FIFO of int nodes that ignores nodes it has already seen, so the search
+     * neither boxes IDs nor revisits shared descendants.
+     */
+    private static final class NodeQueue {
+        private int[] queue = new int[16];
+        private int head;
+        private int tail;
+        private int[] seen = new int[32]; // node + 1, 0 marks an empty slot
+        private int seenCount;
+
+        void add(int node) {
+            if (!markSeen(node)) {
+                return;
+            }
+            if (tail == queue.length) {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+            queue[tail++] = node;
+        }
+
+        boolean hasNext() {
+            return head < tail;
+        }
+
+        int remainingInLevel() {
+            return tail - head;
+        }
+
+        int next() {
+            return queue[head++];
+        }
+
+        private boolean markSeen(int node) {
+            if ((seenCount + 1) * 2 > seen.length) {
+                int[] old = seen;
+                seen = new int[old.length * 2];
+                for (int value : old) {
+                    if (value != 0) {
+                        insert(value);
+                    }
+                }
+            }
+            if (!insert(node + 1)) {
+                return false;
+            }
+            seenCount++;
+            return true;
+        }
+
+        private boolean insert(int value) {
+            int mask = seen.length - 1;
+            int h = value * 0x9E3779B9;
+            int slot = (h ^ (h >>> 16)) & mask;
+            while (seen[slot] != 0) {
+                if (seen[slot] == value) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            seen[slot] = value;
+            return true;
+        }
     }
 }
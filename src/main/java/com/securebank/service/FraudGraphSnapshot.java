@@ -0,0 +1,227 @@
+package com.securebank.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary snapshot of an {@link AdjacencyStore}, written to and read from
+ * memory-mapped files.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int  magic, int version, long watermark, int nodeCount, long edgeCount
+ * long userId                              x nodeCount
+ * int  degree, (int target, int stamp) x degree   x nodeCount
+ * </pre>
+ * The watermark is opaque to this class; {@link FraudGraphSnapshotService} stores
+ * the highest transaction ID whose edge is known to be in the snapshot.
+ */
+final class FraudGraphSnapshot {
+
+    private static final int MAGIC = 0x46524731; // "FRG1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8;
+
+    // Files are mapped in windows so snapshots are not limited to 2 GB
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private FraudGraphSnapshot() {
+    }
+
+    /**
+     * Writes the live edges of the store to {@code path}. The file is written next to
+     * the target and moved into place, so a crash never leaves a partial snapshot.
+     */
+    static void write(AdjacencyStore store, long watermark, int cutoff, Path path) throws IOException {
+        // Capture one consistent view per node up front; both passes must agree on it
+        int nodeCount = store.nodeCount();
+        AdjacencyStore.Edges[] views = new AdjacencyStore.Edges[nodeCount];
+        int[] degrees = new int[nodeCount];
+        long edgeCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            views[node] = store.edges(node);
+            degrees[node] = writtenCount(views[node], cutoff, nodeCount);
+            edgeCount += degrees[node];
+        }
+        long size = HEADER_BYTES + 8L * nodeCount + 4L * nodeCount + 8L * edgeCount;
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (MappedOutput out = new MappedOutput(temp, size)) {
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(watermark);
+            out.putInt(nodeCount);
+            out.putLong(edgeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                out.putLong(store.userIdOf(node));
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                AdjacencyStore.Edges edges = views[node];
+                out.putInt(degrees[node]);
+                for (int i = 0; i < edges.size; i++) {
+                    if (isWritten(edges, i, cutoff, nodeCount)) {
+                        out.putInt(edges.targets[i]);
+                        out.putInt(edges.stamps[i]);
+                    }
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Live edges to nodes inside the snapshot. Traffic during a write can add an edge to a
+     * node created after the node count was taken; that transaction is above the watermark,
+     * so it is replayed on load instead.
+     */
+    private static boolean isWritten(AdjacencyStore.Edges edges, int i, int cutoff, int nodeCount) {
+        return edges.stamps[i] >= cutoff && edges.targets[i] < nodeCount;
+    }
+
+    private static int writtenCount(AdjacencyStore.Edges edges, int cutoff, int nodeCount) {
+        int count = 0;
+        for (int i = 0; i < edges.size; i++) {
+            if (isWritten(edges, i, cutoff, nodeCount)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Loads the edges of a snapshot that are still live into the store and returns
+     * the snapshot's watermark.
+     */
+    static long read(AdjacencyStore store, int cutoff, Path path) throws IOException {
+        try (MappedInput in = new MappedInput(path)) {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a fraud graph snapshot: " + path);
+            }
+            long watermark = in.getLong();
+            int nodeCount = in.getInt();
+            in.getLong(); // edge count, only needed by readers that preallocate
+
+            int[] nodes = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = store.getOrCreateNode(in.getLong());
+            }
+            for (int from = 0; from < nodeCount; from++) {
+                int degree = in.getInt();
+                for (int i = 0; i < degree; i++) {
+                    int target = in.getInt();
+                    int stamp = in.getInt();
+                    if (target < 0 || target >= nodeCount) {
+                        throw new IOException("Corrupt fraud graph snapshot");
+                    }
+                    if (stamp >= cutoff) {
+                        store.addEdge(nodes[from], nodes[target], stamp);
+                    }
+                }
+            }
+            return watermark;
+        }
+    }
+
+    private static final class MappedOutput implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedOutput(Path path, long size) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.size = size;
+            map(0);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            window.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            window.putLong(value);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                window.force();
+                map(windowStart + window.position());
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(WINDOW_BYTES, size - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                window.force();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class MappedInput implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedInput(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            if (size < HEADER_BYTES) {
+                channel.close();
+                throw new IOException("Truncated fraud graph snapshot: " + path);
+            }
+            map(0);
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return window.getLong();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (size - position < bytes) {
+                    throw new IOException("Truncated fraud graph snapshot");
+                }
+                map(position);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.securebank.service;
+
+import com.securebank.repository.TransactionEdgeView;
+import com.securebank.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link FraudGraph} warm across restarts.
+ *
+ * On startup the last snapshot is loaded and only the transactions saved after
+ * its watermark are replayed from the database, in ID-range chunks read in
+ * parallel. While running, the graph is periodically written back to the
+ * snapshot file, and once more on shutdown.
+ */
+@Service
+@Order(1)
+@ConditionalOnProperty(name = "fraud.graph.snapshot.enabled", havingValue = "true")
+public class FraudGraphSnapshotService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(FraudGraphSnapshotService.class);
+
+    @Autowired
+    private FraudGraph fraudGraph;
+
+    @Autowired
+    private FraudGraphWatermark fraudGraphWatermark;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${fraud.graph.snapshot.path:data/fraud-graph.snapshot}")
+    private String snapshotPath;
+
+    @Value("${fraud.graph.replay.chunk-size:50000}")
+    private int replayChunkSize;
+
+    @Value("${fraud.graph.replay.threads:4}")
+    private int replayThreads;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        long start = System.nanoTime();
+        long watermark = loadSnapshot();
+        // Stored before this start, so every ID handed out from now on is above them
+        fraudGraphWatermark.issuedUpTo(transactionRepository.findMaxId());
+        long replayed = replaySince(watermark);
+        log.info("Fraud graph ready: snapshot watermark {}, {} transactions replayed in {} ms",
+                watermark, replayed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.graph.snapshot.interval:5m}",
+               initialDelayString = "${fraud.graph.snapshot.interval:5m}")
+    public void writeSnapshot() {
+        try {
+            // Read the watermark before the graph. IDs are handed out ahead of commit and edges added
+            // after it, so the highest stored ID only bounds it: it stops below rows still being scored
+            // in the background, then below any transfer this instance has not added to the graph yet
+            // (read-write, so on the primary: a lagging replica would put the watermark below edges already in the graph)
+            long stored = transactionTemplate.execute(status -> {
+                long maxId = transactionRepository.findMaxId();
+                Long oldestPending = transactionRepository.findMinPendingId();
+                return oldestPending != null ? Math.min(maxId, oldestPending - 1) : maxId;
+            });
+            long watermark = fraudGraphWatermark.limit(stored);
+            fraudGraph.writeSnapshot(path(), watermark);
+            log.debug("Wrote fraud graph snapshot at watermark {}", watermark);
+        } catch (IOException e) {
+            log.warn("Could not write fraud graph snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    public void writeFinalSnapshot() {
+        writeSnapshot();
+    }
+
+    private long loadSnapshot() {
+        Path path = path();
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try {
+            return fraudGraph.loadSnapshot(path);
+        } catch (IOException e) {
+            // A bad snapshot only costs a longer replay
+            log.warn("Ignoring unreadable fraud graph snapshot {}", path, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Replays every transaction with an ID above the watermark that is still inside the
+     * retention window. The ID range is split into chunks that are queried in parallel,
+     * so no single query or result list grows with the size of the table.
+     */
+    public long replaySince(long watermark) throws Exception {
+        long maxId = transactionRepository.findMaxId();
+        if (maxId <= watermark) {
+            return 0;
+        }
+        LocalDateTime since = fraudGraph.retentionStart();
+        AtomicLong replayed = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(replayThreads);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = watermark; from < maxId; from += replayChunkSize) {
+                long fromId = from;
+                long toId = Math.min(from + replayChunkSize, maxId);
+                chunks.add(pool.submit(() -> {
+                    List<TransactionEdgeView> edges = transactionRepository.findEdgesInIdRange(fromId, toId, since);
+                    for (TransactionEdgeView edge : edges) {
+                        fraudGraph.addEdge(edge.getSenderId(), edge.getReceiverId(), edge.getTimestamp());
+                    }
+                    replayed.addAndGet(edges.size());
+                }));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return replayed.get();
+    }
+
+    private Path path() {
+        return Paths.get(snapshotPath);
+    }
+}
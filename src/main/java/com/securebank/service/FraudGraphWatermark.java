@@ -0,0 +1,91 @@
+package com.securebank.service;
+
+import com.securebank.model.Transaction;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How far the fraud graph is known to be complete, for the snapshot watermark.
+ *
+ * Transaction IDs come from a pooled sequence, so they are handed out ahead of the
+ * inserts and commit out of order, and a transfer's edge is added only after its commit.
+ * The highest stored ID therefore says nothing about lower IDs still on their way in.
+ * Instead every store of new transfers is tracked from before its IDs are handed out
+ * until their edges are in the graph: while a store is under way its IDs can be no lower
+ * than the highest ID seen when it began, and once it commits its IDs are known exactly.
+ */
+@Service
+public class FraudGraphWatermark {
+
+    // Highest ID known to have been handed out; the sequence only hands out higher ones from now on
+    private final AtomicLong highestIssued = new AtomicLong();
+
+    // Stores under way, each with the lowest ID it can be given
+    private final Map<Store, Long> stores = new ConcurrentHashMap<>();
+
+    // Stored transfers whose edges are not in the graph yet
+    private final NavigableSet<Long> unapplied = new ConcurrentSkipListSet<>();
+
+    /**
+     * Starts tracking a store of new transfers. Close it once the store has either failed
+     * or been passed to {@link Store#stored}.
+     */
+    public Store beginStore() {
+        Store store = new Store();
+        stores.put(store, highestIssued.get() + 1);
+        return store;
+    }
+
+    // Edges added to the graph, by any path
+    public void applied(List<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            unapplied.remove(tx.getId());
+            highestIssued.accumulateAndGet(tx.getId(), Math::max);
+        }
+    }
+
+    // Every ID up to this one was handed out before this instance started
+    public void issuedUpTo(long id) {
+        highestIssued.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Lowers a watermark read from the database to below every transfer that may still be
+     * missing its edge. Read the database first: a transfer that commits after that read
+     * is then either still tracked here or above every ID the read could have seen.
+     */
+    public long limit(long watermark) {
+        long limit = watermark;
+        for (long lowest : stores.values()) {
+            limit = Math.min(limit, lowest - 1);
+        }
+        Long oldestUnapplied = unapplied.ceiling(Long.MIN_VALUE);
+        if (oldestUnapplied != null) {
+            limit = Math.min(limit, oldestUnapplied - 1);
+        }
+        return limit;
+    }
+
+    public class Store implements AutoCloseable {
+
+        // The store committed: track its transfers by ID until their edges are added
+        public void stored(List<Transaction> saved) {
+            for (Transaction tx : saved) {
+                unapplied.add(tx.getId());
+                highestIssued.accumulateAndGet(tx.getId(), Math::max);
+            }
+            stores.remove(this);
+        }
+
+        @Override
+        public void close() {
+            stores.remove(this);
+        }
+    }
+}
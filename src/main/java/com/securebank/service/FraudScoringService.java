@@ -1,12 +1,14 @@
 package com.securebank.service;
 
+import com.securebank.metrics.PhaseTimer;
 import com.securebank.model.Transaction;
-import com.securebank.repository.TransactionRepository;
+import com.securebank.service.rules.FraudRulePipeline;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -16,48 +18,66 @@ public class FraudScoringService {
     private FraudGraph fraudGraph;
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private FraudGraphWatermark fraudGraphWatermark;
 
-    /**
-     * Calculates the fraud risk score for a given transaction.
-     * Scores are based on amount, graph cycle detection, velocity, and out-degree.
-     */
-    public int calculateFraudScore(Transaction tx) {
-        // 1. Add transaction edge to fraud graph
-        fraudGraph.addTransactionEdge(tx);
+    @Autowired
+    private SenderActivityTracker senderActivityTracker;
 
-        // 2. Score by transaction amount
-        int amountScore = (tx.getAmount() > 100_000) ? 3
-                : (tx.getAmount() > 50_000) ? 2
-                : 1;
+    @Autowired
+    private FraudRulePipeline fraudRulePipeline;
 
-        // 3. Check for suspicious cycle in graph
-        int cycleScore = fraudGraph.hasSuspiciousCycle(tx.getSender().getId()) ? 3 : 0;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-        // 4. Calculate velocity score (time since last transaction from sender)
-        int velocityScore = 1; // default low risk
+    private PhaseTimer graphStage;
+    private PhaseTimer rulesStage;
+    private PhaseTimer recordStage;
 
-        // Get latest transaction by this sender before current tx time
-        List<Transaction> senderTxs = transactionRepository.findBySenderIdOrderByTimestampDesc(tx.getSender().getId());
-        if (!senderTxs.isEmpty()) {
-            Transaction lastTx = senderTxs.get(0);
-            LocalDateTime lastTxTime = lastTx.getTimestamp();
+    @PostConstruct
+    void initMetrics() {
+        graphStage = stageTimer("graph");
+        rulesStage = stageTimer("rules");
+        recordStage = stageTimer("record");
+        FunctionCounter.builder("fraud.graph.search.truncated", fraudGraph, FraudGraph::getTruncatedSearches)
+                .description("Cycle searches that hit fraud.graph.cycle-max-edges and counted as no cycle")
+                .register(meterRegistry);
+    }
 
-            Duration gap = Duration.between(lastTxTime, tx.getTimestamp());
-            long minutes = gap.toMinutes();
+    private PhaseTimer stageTimer(String stage) {
+        return PhaseTimer.of(meterRegistry, "fraud.scoring.stage",
+                "Time spent in one stage of fraud scoring", "fraud-" + stage, "stage", stage);
+    }
 
-            if (minutes < 1) velocityScore = 3;
-            else if (minutes < 5) velocityScore = 2;
-            else velocityScore = 1;
-        }
+    /**
+     * Calculates the fraud risk score for a given transaction.
+     * The score is the sum of the enabled fraud rules; by default amount,
+     * graph cycle detection, velocity, and out-degree.
+     */
+    public int calculateFraudScore(Transaction tx) {
+        return calculateFraudScore(tx, List.of());
+    }
 
-        // 5. Out-degree score (number of unique receivers)
-        int outDegree = fraudGraph.getOutDegree(tx.getSender().getId());
-        int outDegreeScore = (outDegree > 10) ? 3 : (outDegree > 5) ? 2 : 1;
+    // As above for a batch item, counting the batch's earlier items, which are not stored yet
+    public int calculateFraudScore(Transaction tx, List<Transaction> earlier) {
+        return rulesStage.record(() -> fraudRulePipeline.evaluate(tx, earlier));
+    }
 
-        // 6. Sum all scores for total risk score
-        int totalScore = amountScore + cycleScore + velocityScore + outDegreeScore;
+    /**
+     * Adds stored transfers to the fraud graph and their senders' activity, for later
+     * scoring. Call after the commit, so a save that rolls back leaves nothing behind.
+     */
+    public void recordAccepted(List<Transaction> stored) {
+        long start = System.nanoTime();
+        for (Transaction tx : stored) {
+            fraudGraph.addTransactionEdge(tx);
+        }
+        fraudGraphWatermark.applied(stored);
+        graphStage.stop(start);
 
-        return totalScore;
+        start = System.nanoTime();
+        for (Transaction tx : stored) {
+            senderActivityTracker.record(tx.getSender().getId(), tx.getTimestamp(), tx.getAmount());
+        }
+        recordStage.stop(start);
     }
 }
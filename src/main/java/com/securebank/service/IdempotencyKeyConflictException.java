@@ -0,0 +1,26 @@
+package com.securebank.service;
+
+// An Idempotency-Key that cannot be honoured: still in use (409) or reused for another transfer (422)
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    private final boolean inProgress;
+
+    private IdempotencyKeyConflictException(String message, boolean inProgress) {
+        super(message);
+        this.inProgress = inProgress;
+    }
+
+    static IdempotencyKeyConflictException inProgress() {
+        return new IdempotencyKeyConflictException(
+                "A request with this Idempotency-Key is still being processed; retry shortly", true);
+    }
+
+    static IdempotencyKeyConflictException mismatch() {
+        return new IdempotencyKeyConflictException(
+                "This Idempotency-Key was already used for a different transaction", false);
+    }
+
+    public boolean isInProgress() {
+        return inProgress;
+    }
+}
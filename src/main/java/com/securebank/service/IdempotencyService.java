@@ -0,0 +1,220 @@
+package com.securebank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securebank.dto.TransactionRequest;
+import com.securebank.dto.TransactionResponse;
+import com.securebank.model.IdempotencyRecord;
+import com.securebank.model.ScoringStatus;
+import com.securebank.model.Transaction;
+import com.securebank.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * {@code Idempotency-Key} support for transaction creation. A retried request is answered
+ * with the original response without running the write path again: no user lookups,
+ * scoring, fraud graph update or insert.
+ *
+ * Completed and in-flight keys are held in a bounded in-memory index (Caffeine, so
+ * concurrent and lock-striped), expired {@code transactions.idempotency.ttl} after use.
+ * Behind it, {@link IdempotencyRecord} rows are written in the same database transaction
+ * as the transfer. They answer keys the index has evicted or never saw (a restart,
+ * another instance), and their primary key stops two instances from both using a key.
+ * Keys are scoped per user.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transactions.idempotency.max-keys:100000}")
+    private long maxKeys;
+
+    // How long a key is remembered, in memory and in the table
+    @Value("${transactions.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private Cache<IdempotencyRecord.Key, Entry> index;
+    private Counter claimed;
+    private Counter replayedFromIndex;
+    private Counter replayedFromTable;
+    private Counter conflicts;
+
+    @PostConstruct
+    void init() {
+        index = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "idempotency.keys");
+        claimed = requests("new");
+        replayedFromIndex = requests("replayed");
+        replayedFromTable = requests("replayed-stored");
+        conflicts = requests("conflict");
+    }
+
+    private Counter requests(String result) {
+        return Counter.builder("securebank.idempotency.requests")
+                .description("Transaction creates carrying an Idempotency-Key, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // The outcome of the request that first used a key; response is null until rebuilt from a stored row
+    public record StoredResult(Long transactionId, int status, TransactionResponse response) {
+    }
+
+    // An index entry: result is null while the first request is still running
+    private record Entry(String fingerprint, StoredResult result) {
+    }
+
+    // What a key is bound to: the same transfer retried, not merely the same key
+    public static String fingerprint(TransactionRequest request) {
+        return request.getSenderId() + ":" + request.getReceiverId() + ":" + request.getAmount();
+    }
+
+    /**
+     * Presents a key for a request. Either the request holds the key now (run the write,
+     * calling {@link Claim#record} inside its database transaction, then {@link Claim#complete}
+     * or {@link Claim#release}), or {@link Claim#stored()} is the result to replay.
+     *
+     * @throws IdempotencyKeyConflictException if the key is in use by a running request
+     *         or was used for a different transfer
+     */
+    public Claim claim(Long userId, String key, String fingerprint) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        IdempotencyRecord.Key indexKey = new IdempotencyRecord.Key(userId, key);
+        Entry inFlight = new Entry(fingerprint, null);
+        Entry existing = index.asMap().putIfAbsent(indexKey, inFlight);
+        if (existing != null) {
+            StoredResult result = answer(existing, fingerprint);
+            replayedFromIndex.increment();
+            return new Claim(indexKey, inFlight, result);
+        }
+
+        // Not in memory: the table may still know it. One primary-key read, before any of the write path
+        Optional<IdempotencyRecord> stored;
+        try {
+            stored = recordRepository.findById(indexKey);
+        } catch (RuntimeException e) {
+            index.asMap().remove(indexKey, inFlight);
+            throw e;
+        }
+        if (stored.isPresent()) {
+            IdempotencyRecord row = stored.get();
+            if (!row.getRequestFingerprint().equals(fingerprint)) {
+                index.asMap().remove(indexKey, inFlight);
+                conflicts.increment();
+                throw IdempotencyKeyConflictException.mismatch();
+            }
+            replayedFromTable.increment();
+            return new Claim(indexKey, inFlight, new StoredResult(row.getTransactionId(), row.getResponseStatus(), null));
+        }
+        claimed.increment();
+        return new Claim(indexKey, inFlight, null);
+    }
+
+    private StoredResult answer(Entry existing, String fingerprint) {
+        if (!existing.fingerprint().equals(fingerprint)) {
+            conflicts.increment();
+            throw IdempotencyKeyConflictException.mismatch();
+        }
+        if (existing.result() == null) {
+            conflicts.increment();
+            throw IdempotencyKeyConflictException.inProgress();
+        }
+        return existing.result();
+    }
+
+    /** A key held by one request, or the earlier result to replay when {@link #stored()} is set. */
+    public final class Claim {
+
+        private final IdempotencyRecord.Key key;
+        private final Entry inFlight;
+        private final StoredResult stored;
+        private boolean done;
+
+        private Claim(IdempotencyRecord.Key key, Entry inFlight, StoredResult stored) {
+            this.key = key;
+            this.inFlight = inFlight;
+            this.stored = stored;
+            // A replay straight from the index holds nothing
+            this.done = stored != null && stored.response() != null;
+        }
+
+        public StoredResult stored() {
+            return stored;
+        }
+
+        /**
+         * Writes the key's row inside the transaction saving {@code saved}. Another instance
+         * that used the key first makes this throw and the whole transaction roll back.
+         */
+        public void record(Transaction saved) {
+            if (recordRepository.existsById(key)) {
+                throw IdempotencyKeyConflictException.inProgress();
+            }
+            int status = saved.getScoringStatus() == ScoringStatus.PENDING
+                    ? HttpStatus.ACCEPTED.value() : HttpStatus.OK.value();
+            entityManager.persist(new IdempotencyRecord(key.getUserId(), key.getIdempotencyKey(),
+                    inFlight.fingerprint(), saved.getId(), status));
+        }
+
+        // Remembers the response, so retries are answered from memory from now on
+        public void complete(Long transactionId, int status, TransactionResponse response) {
+            index.put(key, new Entry(inFlight.fingerprint(), new StoredResult(transactionId, status, response)));
+            done = true;
+        }
+
+        // The request failed before using the key: let a retry run it
+        public void release() {
+            if (!done) {
+                index.asMap().remove(key, inFlight);
+                done = true;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${transactions.idempotency.purge-interval:1h}",
+               initialDelayString = "${transactions.idempotency.purge-interval:1h}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        Integer purged = transactionTemplate.execute(status -> recordRepository.deleteCreatedBefore(cutoff));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} idempotency keys older than {}", purged, ttl);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.securebank.service;
+
+import com.securebank.model.Transaction;
+
+// A debit larger than the account's balance; a bad request like any other failed validation
+public class InsufficientFundsException extends IllegalArgumentException {
+
+    private final Long accountId;
+    private final transient Transaction transaction;
+
+    public InsufficientFundsException(Long accountId, double amount) {
+        this(accountId, amount, null);
+    }
+
+    InsufficientFundsException(Long accountId, double amount, Transaction transaction) {
+        super("Insufficient funds in account " + accountId + " for " + amount);
+        this.accountId = accountId;
+        this.transaction = transaction;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    // The transfer being posted when the debit failed, if any, so a batch can drop just that item
+    public Transaction getTransaction() {
+        return transaction;
+    }
+}
@@ -0,0 +1,9 @@
+package com.securebank.service;
+
+// Another instance holds the journal lease, so funds this one cannot see are reserved there; answered with 503
+public class JournaledElsewhereException extends IllegalStateException {
+
+    public JournaledElsewhereException(String owner) {
+        super("Transfers are being journaled by instance " + owner + "; send them there");
+    }
+}
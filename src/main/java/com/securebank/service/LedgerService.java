@@ -0,0 +1,272 @@
+package com.securebank.service;
+
+import com.securebank.model.AccountBalance;
+import com.securebank.model.LedgerEntry;
+import com.securebank.model.Transaction;
+import com.securebank.repository.AccountBalanceRepository;
+import com.securebank.repository.AccountBalanceView;
+import com.securebank.repository.SlotCountView;
+import com.securebank.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Account balances and the double-entry ledger behind them. {@link #post} runs inside
+ * the transaction that saves transfers (see {@link AccountSummaryService#saveWithSummaries}),
+ * so the transfer, both {@link LedgerEntry} rows and both balance changes commit together.
+ *
+ * Balances are never read and written back: a credit is one {@code balance = balance + ?}
+ * statement and a debit one conditional {@code balance = balance - ? WHERE balance >= ?},
+ * so the row is locked only for the rest of the transaction. Hot accounts
+ * ({@code ledger.hot-accounts}) are split into {@code ledger.hot-account-slots} rows and
+ * each update goes to a random slot, so concurrent transfers into one merchant mostly
+ * lock different rows. A debit no single slot covers locks all the account's slots, in
+ * order, and drains them. Reads sum the slots.
+ */
+@Service
+@Order(4)
+public class LedgerService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    // Where deposits come from; allowed to go negative
+    public static final long EXTERNAL_ACCOUNT = 0L;
+
+    @Autowired
+    private AccountBalanceRepository balanceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Off: balances are still kept, but may go negative. Existing users start at 0, so fund them before turning it on
+    @Value("${ledger.enforce-funds:false}")
+    private boolean enforceFunds;
+
+    // Emails of accounts to split on startup (merchants, payroll)
+    @Value("${ledger.hot-accounts:}")
+    private List<String> hotAccounts;
+
+    @Value("${ledger.hot-account-slots:16}")
+    private int hotAccountSlots;
+
+    // Accounts split into more than one slot; absent means one. Reloaded so splits made elsewhere are used
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        refreshSlotCounts();
+        // Every deposit debits the external account, so it is as hot as any merchant
+        splitAccount(EXTERNAL_ACCOUNT, hotAccountSlots);
+        for (String email : hotAccounts) {
+            if (email.isBlank()) {
+                continue;
+            }
+            userRepository.findByEmail(email.trim()).ifPresentOrElse(
+                    user -> splitAccount(user.getId(), hotAccountSlots),
+                    () -> log.warn("Hot account {} not found; not split", email));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.slot-refresh-interval:1m}",
+               initialDelayString = "${ledger.slot-refresh-interval:1m}")
+    public void refreshSlotCounts() {
+        for (SlotCountView split : balanceRepository.findSplitAccounts()) {
+            slotCounts.put(split.getUserId(), split.getSlots().intValue());
+        }
+    }
+
+    /**
+     * Splits an account into {@code slots} balance rows by adding empty ones. Never
+     * merges: an account already split further keeps its slots.
+     */
+    public void splitAccount(Long userId, int slots) {
+        int count = transactionTemplate.execute(status -> {
+            int existing = (int) balanceRepository.countByUserId(userId);
+            for (int slot = existing; slot < slots; slot++) {
+                insert(new AccountBalance(userId, slot, 0));
+            }
+            return Math.max(existing, slots);
+        });
+        if (count > 1) {
+            slotCounts.put(userId, count);
+        }
+    }
+
+    // Called when a user registers, so the first credit updates a row instead of racing to create it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void createFor(Long userId) {
+        insert(new AccountBalance(userId, 0, 0));
+    }
+
+    // Posts saved transfers: sender debited, receiver credited, inside the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(List<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            move(tx.getSender().getId(), tx.getReceiver().getId(), tx.getAmount(), tx, enforceFunds);
+        }
+    }
+
+    // As post, for transfers already acknowledged with their funds reserved (the journal): never refused
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postAccepted(List<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            move(tx.getSender().getId(), tx.getReceiver().getId(), tx.getAmount(), tx, false);
+        }
+    }
+
+    // ✅ Money in from outside the bank
+    @Transactional
+    public double deposit(Long userId, double amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Deposit amount must be positive");
+        }
+        move(EXTERNAL_ACCOUNT, userId, amount, null, false);
+        return balanceRepository.sumBalance(userId);
+    }
+
+    // Checked before scoring, so an overdraft is refused before any work; post() checks again under the update.
+    // Read from the primary: a lagging replica could refuse money just deposited
+    @Transactional
+    public void checkFunds(Long userId, double amount) {
+        checkFunds(userId, amount, 0);
+    }
+
+    // As above, with part of the balance already promised to accepted transfers not yet posted (the journal)
+    @Transactional
+    public void checkFunds(Long userId, double amount, double reserved) {
+        if (enforceFunds && balanceRepository.sumBalance(userId) - reserved < amount) {
+            throw new InsufficientFundsException(userId, amount);
+        }
+    }
+
+    // As checkFunds, for a batch: the balances of every sender in one grouped query
+    @Transactional
+    public Map<Long, Double> getBalancesForCheck(Collection<Long> userIds) {
+        Map<Long, Double> balances = new HashMap<>();
+        if (enforceFunds && !userIds.isEmpty()) {
+            for (AccountBalanceView view : balanceRepository.sumBalances(userIds)) {
+                balances.put(view.getUserId(), view.getBalance());
+            }
+        }
+        return balances;
+    }
+
+    public boolean isEnforcingFunds() {
+        return enforceFunds;
+    }
+
+    @Transactional(readOnly = true)
+    public double getBalance(Long userId) {
+        return balanceRepository.sumBalance(userId);
+    }
+
+    public int slotsOf(Long userId) {
+        return slotCounts.getOrDefault(userId, 1);
+    }
+
+    // Both sides in account order, so two transfers between the same accounts lock rows in the same order
+    private void move(Long from, Long to, double amount, Transaction tx, boolean checkFunds) {
+        Long transactionId = tx == null ? null : tx.getId();
+        if (from < to) {
+            debit(from, amount, tx, checkFunds);
+            credit(to, amount, transactionId);
+        } else {
+            credit(to, amount, transactionId);
+            debit(from, amount, tx, checkFunds);
+        }
+    }
+
+    private void credit(Long userId, double amount, Long transactionId) {
+        int slot = pickSlot(userId);
+        if (balanceRepository.add(userId, slot, amount) == 0) {
+            // Accounts opened before the ledger existed get their row on first use
+            insert(new AccountBalance(userId, slot, amount));
+        }
+        entityManager.persist(new LedgerEntry(transactionId, userId, slot, amount));
+    }
+
+    private void debit(Long userId, double amount, Transaction tx, boolean checkFunds) {
+        Long transactionId = tx == null ? null : tx.getId();
+        if (!checkFunds) {
+            credit(userId, -amount, transactionId);
+            return;
+        }
+        int slots = slotsOf(userId);
+        int start = pickSlot(userId);
+        for (int i = 0; i < slots; i++) {
+            int slot = (start + i) % slots;
+            if (balanceRepository.subtractIfCovered(userId, slot, amount) == 1) {
+                entityManager.persist(new LedgerEntry(transactionId, userId, slot, -amount));
+                return;
+            }
+        }
+        drain(userId, amount, tx);
+    }
+
+    // No single slot covers the debit: lock them all and take it across several
+    private void drain(Long userId, double amount, Transaction tx) {
+        Long transactionId = tx == null ? null : tx.getId();
+        List<AccountBalance> rows = balanceRepository.lockSlots(userId);
+        double available = rows.stream().mapToDouble(AccountBalance::getBalance).sum();
+        if (available < amount) {
+            throw new InsufficientFundsException(userId, amount, tx);
+        }
+        double remaining = amount;
+        for (AccountBalance row : rows) {
+            double taken = Math.min(row.getBalance(), remaining);
+            if (taken <= 0) {
+                continue;
+            }
+            row.setBalance(row.getBalance() - taken);
+            entityManager.persist(new LedgerEntry(transactionId, userId, row.getSlot(), -taken));
+            remaining -= taken;
+            if (remaining <= 0) {
+                break;
+            }
+        }
+        // Written now and let go, like insert()
+        entityManager.flush();
+        rows.forEach(entityManager::detach);
+    }
+
+    /**
+     * Writes a balance row now and lets go of it. Balances change through bulk updates,
+     * which bypass the persistence context, so a managed copy would go stale and be read
+     * back (and written) by {@link #drain}. Flushing here also makes a racing creator fail
+     * at once, and the unit retries.
+     */
+    private void insert(AccountBalance row) {
+        entityManager.persist(row);
+        entityManager.flush();
+        entityManager.detach(row);
+    }
+
+    private int pickSlot(Long userId) {
+        int slots = slotsOf(userId);
+        return slots == 1 ? 0 : ThreadLocalRandom.current().nextInt(slots);
+    }
+}
@@ -0,0 +1,173 @@
+package com.securebank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securebank.repository.TransactionActivityView;
+import com.securebank.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Keeps the most recent transactions of each active sender in memory for velocity scoring.
+ *
+ * Each sender gets a fixed-size ring of timestamps and amounts. The ring is warmed
+ * lazily from a LIMIT-ed query the first time a sender is scored; after that every
+ * velocity lookup is served from memory. Transfers are recorded once they are stored,
+ * so a save that rolls back leaves nothing behind. A transfer scored after it was stored
+ * (async scoring) is left out of a warm-up it triggers, so it is never its own history.
+ * Senders that go idle are dropped by a background sweep; at the cap, adding a sender
+ * evicts another.
+ */
+@Service
+public class SenderActivityTracker {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    // Transactions remembered per sender; bounds both memory and the warm-up query
+    @Value("${fraud.velocity.history-size:16}")
+    private int historySize = 16;
+
+    // Senders with no activity for this long are dropped from memory
+    @Value("${fraud.velocity.idle-timeout:1h}")
+    private Duration idleTimeout = Duration.ofHours(1);
+
+    // Upper bound on tracked senders
+    @Value("${fraud.velocity.max-senders:100000}")
+    private int maxSenders = 100_000;
+
+    private Cache<Long, ActivityRing> senders;
+
+    @PostConstruct
+    void init() {
+        senders = Caffeine.newBuilder()
+                .maximumSize(maxSenders)
+                .build();
+    }
+
+    /**
+     * Returns the time of the sender's latest transaction, or null if there is none.
+     * {@code scoredId} is the transaction being scored, if it is already stored.
+     */
+    public LocalDateTime getLastTransactionTime(Long senderId, Long scoredId) {
+        long last = ring(senderId, scoredId).lastMillis();
+        return last < 0 ? null : toDateTime(last);
+    }
+
+    /** Number of the sender's remembered transactions at or after {@code since}. */
+    public int countSince(Long senderId, Long scoredId, LocalDateTime since) {
+        return ring(senderId, scoredId).countSince(toMillis(since));
+    }
+
+    /** Total amount of the sender's remembered transactions at or after {@code since}. */
+    public double amountSince(Long senderId, Long scoredId, LocalDateTime since) {
+        return ring(senderId, scoredId).amountSince(toMillis(since));
+    }
+
+    // Remember a transaction of this sender's that has been stored
+    public void record(Long senderId, LocalDateTime timestamp, double amount) {
+        // A sender not in memory is warmed from the table on their next check, which already has this row
+        ActivityRing ring = senders.getIfPresent(senderId);
+        if (ring != null) {
+            ring.add(toMillis(timestamp), amount);
+        }
+    }
+
+    // Forget a sender, e.g. after their history was changed outside the normal write path
+    public void evict(Long senderId) {
+        senders.invalidate(senderId);
+    }
+
+    @Scheduled(fixedDelayString = "${fraud.velocity.eviction-interval:1m}")
+    public void evictIdleSenders() {
+        long idleBefore = System.currentTimeMillis() - idleTimeout.toMillis();
+        senders.asMap().values().removeIf(ring -> ring.lastMillis() < idleBefore);
+    }
+
+    private ActivityRing ring(Long senderId, Long scoredId) {
+        ActivityRing ring = senders.getIfPresent(senderId);
+        if (ring != null) {
+            return ring;
+        }
+        // Warm outside the cache so the query never blocks other senders
+        ActivityRing warmed = new ActivityRing(historySize);
+        List<TransactionActivityView> recent =
+                transactionRepository.findRecentActivityBySender(senderId, PageRequest.of(0, historySize));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            // Recorded once it is scored, like every other transfer
+            if (!recent.get(i).getId().equals(scoredId)) {
+                warmed.add(toMillis(recent.get(i).getTimestamp()), recent.get(i).getAmount());
+            }
+        }
+        ring = senders.asMap().putIfAbsent(senderId, warmed);
+        return ring != null ? ring : warmed;
+    }
+
+    private static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /** Fixed-size ring of (timestamp, amount), oldest entries overwritten first. */
+    private static final class ActivityRing {
+        private final long[] times;
+        private final double[] amounts;
+        private int next;
+        private int count;
+
+        ActivityRing(int capacity) {
+            times = new long[capacity];
+            amounts = new double[capacity];
+        }
+
+        synchronized void add(long millis, double amount) {
+            times[next] = millis;
+            amounts[next] = amount;
+            next = (next + 1) % times.length;
+            if (count < times.length) {
+                count++;
+            }
+        }
+
+        synchronized long lastMillis() {
+            long last = -1;
+            for (int i = 0; i < count; i++) {
+                last = Math.max(last, times[i]);
+            }
+            return last;
+        }
+
+        synchronized int countSince(long fromMillis) {
+            int matches = 0;
+            for (int i = 0; i < count; i++) {
+                if (times[i] >= fromMillis) {
+                    matches++;
+                }
+            }
+            return matches;
+        }
+
+        synchronized double amountSince(long fromMillis) {
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                if (times[i] >= fromMillis) {
+                    total += amounts[i];
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.securebank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securebank.model.RiskBand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-sender rate limit on creating transactions, checked before any user lookup or
+ * database work, so one flooding sender cannot take the connection pool and the fraud
+ * graph for everyone else.
+ *
+ * Each sender has a token bucket sized by the risk band of their last scored transaction
+ * ({@code transactions.throttle.<band>.per-minute} and {@code .burst}); new senders start
+ * in the low-risk band. Buckets are lock-free: one CAS on a single timestamp (the
+ * GCRA form of a token bucket), so a rejection costs a map lookup and a subtraction.
+ * Idle senders are forgotten and the number tracked is capped; at the cap a new sender's
+ * bucket replaces a less active one, so every sender is always limited. Risk bands above
+ * low are kept apart from the buckets, so a flood of new senders cannot evict a high-risk
+ * sender back to the low-risk limit.
+ */
+@Service
+public class SenderThrottle {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transactions.throttle.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transactions.throttle.low-risk.per-minute:120}")
+    private int lowRiskPerMinute;
+
+    @Value("${transactions.throttle.low-risk.burst:20}")
+    private int lowRiskBurst;
+
+    @Value("${transactions.throttle.medium-risk.per-minute:30}")
+    private int mediumRiskPerMinute;
+
+    @Value("${transactions.throttle.medium-risk.burst:5}")
+    private int mediumRiskBurst;
+
+    @Value("${transactions.throttle.high-risk.per-minute:6}")
+    private int highRiskPerMinute;
+
+    @Value("${transactions.throttle.high-risk.burst:2}")
+    private int highRiskBurst;
+
+    // Senders with no transfer for this long are forgotten (their bucket would be full again anyway)
+    @Value("${transactions.throttle.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    @Value("${transactions.throttle.max-senders:100000}")
+    private int maxSenders;
+
+    private Cache<Long, Bucket> buckets;
+    // Only senders above the low-risk band; absent means low risk
+    private Cache<Long, RiskBand> bands;
+    private final Map<RiskBand, Limit> limits = new EnumMap<>(RiskBand.class);
+    private final Map<RiskBand, Counter> rejected = new EnumMap<>(RiskBand.class);
+
+    // Nanoseconds between transfers, and how far ahead of schedule a burst may run
+    private record Limit(long intervalNanos, long toleranceNanos) {
+
+        static Limit of(int perMinute, int burst) {
+            long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            return new Limit(interval, interval * (Math.max(1, burst) - 1));
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxSenders)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        bands = Caffeine.newBuilder()
+                .maximumSize(maxSenders)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        limits.put(RiskBand.LOW_RISK, Limit.of(lowRiskPerMinute, lowRiskBurst));
+        limits.put(RiskBand.MEDIUM_RISK, Limit.of(mediumRiskPerMinute, mediumRiskBurst));
+        limits.put(RiskBand.HIGH_RISK, Limit.of(highRiskPerMinute, highRiskBurst));
+        for (RiskBand band : RiskBand.values()) {
+            rejected.put(band, Counter.builder("securebank.throttle.rejected")
+                    .description("Transactions refused because the sender was over their rate limit")
+                    .tag("band", band.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("securebank.throttle.senders", this, throttle -> throttle.buckets.estimatedSize())
+                .description("Senders with a rate limit bucket in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one transfer from the sender's bucket.
+     *
+     * @throws SenderThrottledException if the bucket is empty; nothing is taken
+     */
+    public void acquire(Long senderId) {
+        long waitNanos = take(senderId);
+        if (waitNanos > 0) {
+            throw new SenderThrottledException(senderId, Duration.ofNanos(waitNanos));
+        }
+    }
+
+    // As acquire, for callers that report the rejection themselves (batch items)
+    public boolean tryAcquire(Long senderId) {
+        return take(senderId) == 0;
+    }
+
+    // 0 when a transfer was taken, otherwise how long until the next one is allowed
+    private long take(Long senderId) {
+        if (!enabled) {
+            return 0;
+        }
+        Bucket bucket = buckets.get(senderId, id -> new Bucket(System.nanoTime()));
+        RiskBand band = bands.getIfPresent(senderId);
+        if (band == null) {
+            band = RiskBand.LOW_RISK;
+        }
+        long waitNanos = bucket.tryTake(limits.get(band), System.nanoTime());
+        if (waitNanos > 0) {
+            rejected.get(band).increment();
+        }
+        return waitNanos;
+    }
+
+    // Moves the sender to the limit of the band their latest transfer was scored in
+    public void recordScore(Long senderId, int fraudRiskScore) {
+        RiskBand band = RiskBand.of(fraudRiskScore);
+        if (band == RiskBand.LOW_RISK) {
+            bands.invalidate(senderId);
+        } else {
+            bands.put(senderId, band);
+        }
+    }
+
+    // Idle senders expire lazily; this drops them even when nobody is sending
+    @Scheduled(fixedDelayString = "${transactions.throttle.eviction-interval:1m}")
+    public void evictIdleSenders() {
+        buckets.cleanUp();
+        bands.cleanUp();
+    }
+
+    /**
+     * A token bucket as a single "theoretical arrival time": the moment the bucket would
+     * be full again. A transfer is allowed while that is at most the burst tolerance ahead
+     * of now, and pushes it one interval further.
+     */
+    private static final class Bucket {
+
+        private final AtomicLong fullAt;
+
+        Bucket(long now) {
+            fullAt = new AtomicLong(now);
+        }
+
+        // 0 when taken, otherwise how long until a token is free
+        long tryTake(Limit limit, long now) {
+            while (true) {
+                long current = fullAt.get();
+                long base = current - now > 0 ? current : now;
+                long ahead = base - now;
+                if (ahead > limit.toleranceNanos()) {
+                    return ahead - limit.toleranceNanos();
+                }
+                if (fullAt.compareAndSet(current, base + limit.intervalNanos())) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
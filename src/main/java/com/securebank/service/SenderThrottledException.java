@@ -0,0 +1,20 @@
+package com.securebank.service;
+
+import java.time.Duration;
+
+// A sender over their rate limit; answered with 429 and Retry-After
+public class SenderThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public SenderThrottledException(Long senderId, Duration retryAfter) {
+        // No stack trace: thrown on every throttled request, and always handled
+        super("Too many transactions from sender " + senderId + "; retry after " + retryAfter.toMillis() + " ms",
+                null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,92 @@
+package com.securebank.service;
+
+import com.securebank.repository.ArchivedTransactionRepository;
+import com.securebank.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves scored transactions older than {@code transactions.archive.max-age} from the hot
+ * table to {@code transactions_archive}, a chunk per database transaction, so the hot
+ * table and its indexes stay sized to recent traffic however much history accumulates.
+ * Rows still pending a score stay hot until they are scored.
+ */
+@Service
+public class TransactionArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private TransactionTiers transactionTiers;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${transactions.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transactions.archive.max-age:90d}")
+    private Duration maxAge;
+
+    @Value("${transactions.archive.chunk-size:5000}")
+    private int chunkSize;
+
+    @Scheduled(fixedDelayString = "${transactions.archive.interval:1h}",
+               initialDelayString = "${transactions.archive.interval:1h}")
+    public void archiveExpired() {
+        if (enabled) {
+            archiveOlderThan(LocalDateTime.now().minus(maxAge));
+        }
+    }
+
+    // Moves every archivable row older than the cutoff, returning how many were moved
+    public long archiveOlderThan(LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        transactionTiers.archivingBefore(cutoff);
+        long moved = 0;
+        try {
+            int chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> moveChunk(cutoff));
+                moved += chunk;
+            } while (chunk == chunkSize);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance is archiving the same rows; its run will finish the job
+            log.warn("Archiving stopped after {} rows: chunk already archived elsewhere", moved, e);
+        } finally {
+            transactionTiers.refreshBoundary();
+        }
+        if (moved > 0) {
+            log.info("Archived {} transactions older than {} in {} ms", moved, cutoff,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return moved;
+    }
+
+    private int moveChunk(LocalDateTime cutoff) {
+        List<Long> ids = transactionRepository.findArchivableIds(cutoff, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedTransactionRepository.copyFromHot(ids);
+        transactionRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.securebank.service;
+
+import com.securebank.repository.TransactionSummaryView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in a newest-first transaction listing: the (timestamp, id) of the last row
+ * already returned. Clients only ever see it as an opaque URL-safe token.
+ */
+public record TransactionCursor(LocalDateTime timestamp, long id) {
+
+    // Truncated to the column's microsecond precision, or the last row would compare as older than itself
+    public static TransactionCursor after(TransactionSummaryView tx) {
+        return new TransactionCursor(tx.getTimestamp().truncatedTo(ChronoUnit.MICROS), tx.getId());
+    }
+
+    public String encode() {
+        String plain = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(plain.substring(0, separator)),
+                    Long.parseLong(plain.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
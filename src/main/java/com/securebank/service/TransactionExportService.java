@@ -0,0 +1,194 @@
+package com.securebank.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.model.RiskBand;
+import com.securebank.model.ScoringStatus;
+import com.securebank.repository.TransactionSummaryView;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams transactions to an output stream as NDJSON or CSV, for audit exports.
+ *
+ * Rows are read as projections through a forward-only database cursor and written
+ * as they arrive, so heap use stays flat however large the export is. The persistence
+ * context is also cleared every {@code transactions.export.clear-interval} rows, so
+ * nothing loaded alongside the export can pile up in the session.
+ */
+@Service
+public class TransactionExportService {
+
+    // Bounds for open-ended time filters; both fit a MySQL DATETIME
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    // Every field is optional; from is inclusive, to exclusive. A risk band leaves out PENDING rows.
+    public record ExportFilter(LocalDateTime from, LocalDateTime to, Long senderId, RiskBand risk) {
+    }
+
+    @Autowired
+    private TransactionTiers transactionTiers;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${transactions.export.clear-interval:1000}")
+    private int clearInterval;
+
+    @Transactional(readOnly = true)
+    public long export(ExportFilter filter, Format format, OutputStream out) throws IOException {
+        RiskBand risk = filter.risk();
+        try (Stream<TransactionSummaryView> rows = transactionTiers.streamForExport(
+                filter.from() != null ? filter.from() : EARLIEST,
+                filter.to() != null ? filter.to() : LATEST,
+                filter.senderId(),
+                risk != null ? risk.getMinScore() : 0,
+                risk != null ? risk.getMaxScore() : Integer.MAX_VALUE,
+                risk == null)) {
+            RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+            long count = 0;
+            Iterator<TransactionSummaryView> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++count % clearInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+            writer.finish();
+            return count;
+        }
+    }
+
+    private static String scoringStatus(TransactionSummaryView row) {
+        // Rows saved before the column existed were scored inline
+        return row.getScoringStatus() != null ? row.getScoringStatus().name() : ScoringStatus.SCORED.name();
+    }
+
+    private interface RowWriter {
+        void write(TransactionSummaryView row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // One JSON object per line, written field by field without an intermediate object
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            json = objectMapper.getFactory().createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(TransactionSummaryView row) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", row.getId());
+            json.writeNumberField("senderId", row.getSenderId());
+            json.writeStringField("senderEmail", row.getSenderEmail());
+            json.writeNumberField("receiverId", row.getReceiverId());
+            json.writeStringField("receiverEmail", row.getReceiverEmail());
+            json.writeNumberField("amount", row.getAmount());
+            json.writeStringField("timestamp", row.getTimestamp().toString());
+            json.writeNumberField("fraudRiskScore", row.getFraudRiskScore());
+            json.writeStringField("scoringStatus", scoringStatus(row));
+            json.writeStringField("status", row.getRiskStatus());
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer csv;
+
+        CsvWriter(OutputStream out) throws IOException {
+            csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            csv.write("id,sender_id,sender_email,receiver_id,receiver_email,amount,timestamp,fraud_risk_score,scoring_status,status\n");
+        }
+
+        @Override
+        public void write(TransactionSummaryView row) throws IOException {
+            csv.write(String.valueOf(row.getId()));
+            csv.write(',');
+            csv.write(String.valueOf(row.getSenderId()));
+            csv.write(',');
+            csv.write(escape(row.getSenderEmail()));
+            csv.write(',');
+            csv.write(String.valueOf(row.getReceiverId()));
+            csv.write(',');
+            csv.write(escape(row.getReceiverEmail()));
+            csv.write(',');
+            csv.write(String.valueOf(row.getAmount()));
+            csv.write(',');
+            csv.write(row.getTimestamp().toString());
+            csv.write(',');
+            csv.write(String.valueOf(row.getFraudRiskScore()));
+            csv.write(',');
+            csv.write(scoringStatus(row));
+            csv.write(',');
+            csv.write(row.getRiskStatus());
+            csv.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csv.flush();
+        }
+
+        // RFC 4180: quote fields containing a separator, quote or line break
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
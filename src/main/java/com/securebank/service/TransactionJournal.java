@@ -0,0 +1,579 @@
+package com.securebank.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.journal.JournalRecord;
+import com.securebank.journal.SegmentedJournal;
+import com.securebank.model.JournalLease;
+import com.securebank.model.ScoringStatus;
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.repository.JournalLeaseRepository;
+import com.securebank.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in write-ahead path for single transfers ({@code transactions.journal.enabled}).
+ * An accepted, scored transfer gets its ID from the transactions sequence, is appended to
+ * a local {@link SegmentedJournal} and is acknowledged once the journal has synced it;
+ * concurrent requests share one fsync. A flusher thread drains the journal into the
+ * database in batches of up to {@code transactions.journal.flush-batch-size}: one JDBC
+ * batch insert plus the account summary and ledger updates, as one database transaction.
+ * Records the database refuses outright (a constraint it will never satisfy) are set
+ * aside in {@code dead-letter.ndjson} in the journal directory, so they block nothing.
+ *
+ * Funds are reserved at acceptance: the sender's balance less what their journaled,
+ * unflushed transfers will take. Direct saves on this instance check and reserve against
+ * the same map until they commit. Reservations are in memory, so the journaling instance
+ * holds a {@link JournalLease}; while it is live, other instances refuse transfers that
+ * need a funds check. Segments left by a crash are replayed on startup, before requests
+ * are served, skipping rows already stored.
+ *
+ * Journaled transfers reach the read endpoints once flushed, normally within
+ * {@code transactions.journal.flush-interval}.
+ */
+@Service
+public class TransactionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionJournal.class);
+
+    private static final String INSERT_SQL = "INSERT INTO transactions " +
+            "(id, sender_id, receiver_id, amount, timestamp, fraud_risk_score, scoring_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int RESERVATION_STRIPES = 64;
+
+    private static final String LEASE = "transactions";
+
+    private static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JournalLeaseRepository leaseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${transactions.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transactions.journal.directory:journal}")
+    private Path directory;
+
+    @Value("${transactions.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${transactions.journal.flush-batch-size:2000}")
+    private int flushBatchSize;
+
+    // How long the flusher waits for a full batch before writing what it has
+    @Value("${transactions.journal.flush-interval:20ms}")
+    private Duration flushInterval;
+
+    // Unflushed records beyond which new transfers take the direct path instead
+    @Value("${transactions.journal.max-backlog:100000}")
+    private long maxBacklog;
+
+    // A sync slower than this is logged; the request keeps waiting for it
+    @Value("${transactions.journal.slow-sync-warning:5s}")
+    private Duration slowSyncWarning;
+
+    // Renewed every lease-renew-interval; other instances wait this long after the holder dies
+    @Value("${transactions.journal.lease-duration:30s}")
+    private Duration leaseDuration;
+
+    // The journal's host and directory: restarted over the same files, an instance takes its lease straight back
+    private String owner;
+    private volatile boolean leaseHeld;
+    // Owner of another instance's live lease, or null
+    private volatile String journaledBy;
+
+    private SegmentedJournal journal;
+    private Thread flusher;
+    private volatile boolean stopping;
+    private volatile long flushed;
+
+    private SessionFactoryImplementor sessionFactory;
+    private BeforeExecutionGenerator idGenerator;
+
+    // Sender -> amount of their journaled transfers not yet posted to the ledger
+    private final Map<Long, Double> reserved = new ConcurrentHashMap<>();
+    private final ReentrantLock[] reservationLocks = new ReentrantLock[RESERVATION_STRIPES];
+
+    private Timer syncTimer;
+    private DistributionSummary syncGroupSize;
+    private Timer flushTimer;
+    private Counter flushFailures;
+    private Counter deadLettered;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            renewLease();
+            return;
+        }
+        owner = hostName() + ":" + directory.toAbsolutePath();
+        if (!claimLease()) {
+            throw new IllegalStateException("Another instance holds the transaction journal lease; "
+                    + "only one instance may journal transfers");
+        }
+        leaseHeld = true;
+        for (int i = 0; i < RESERVATION_STRIPES; i++) {
+            reservationLocks[i] = new ReentrantLock();
+        }
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        idGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Transaction.class).getGenerator();
+
+        syncTimer = Timer.builder("securebank.journal.sync")
+                .description("Time to force appended journal records to disk, once per group commit")
+                .register(meterRegistry);
+        syncGroupSize = DistributionSummary.builder("securebank.journal.sync.records")
+                .description("Records made durable by one journal sync")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("securebank.journal.flush")
+                .description("Time to write one batch of journal records to the database")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("securebank.journal.flush.failures")
+                .description("Journal batches that failed to write, such as with the database down; retried until written")
+                .register(meterRegistry);
+        deadLettered = Counter.builder("securebank.journal.dead-lettered")
+                .description("Journal records the database refused outright, set aside in the dead-letter file")
+                .register(meterRegistry);
+
+        // Before the flusher and before requests: whatever an earlier run left goes in first
+        journal = new SegmentedJournal(directory, segmentSize.toBytes(), (records, nanos) -> {
+            syncTimer.record(nanos, TimeUnit.NANOSECONDS);
+            syncGroupSize.record(records);
+        });
+        replay(journal.recovered());
+        journal.discardRecovered();
+
+        Gauge.builder("securebank.journal.backlog", this, TransactionJournal::backlog)
+                .description("Journaled transfers not yet written to the database")
+                .register(meterRegistry);
+        flusher = Thread.ofPlatform().daemon().name("journal-flusher").start(this::flushLoop);
+        log.info("Transaction journal enabled in {}", directory.toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Room for another transfer. Past max-backlog the database is not keeping up, and after a failed
+    // sync the journal takes nothing more: either way callers save directly
+    public boolean hasRoom() {
+        return enabled && leaseHeld && !stopping && journal.isOpen() && backlog() < maxBacklog;
+    }
+
+    /**
+     * Refuses a transfer this instance cannot check: another instance journals transfers,
+     * and the funds it has reserved are only in its memory. Without funds enforcement
+     * nothing can be overdrawn, so everything is allowed.
+     *
+     * @throws JournaledElsewhereException while another instance holds a live lease
+     */
+    public void checkWritable() {
+        String holder = journaledBy;
+        if (holder != null && ledgerService.isEnforcingFunds()) {
+            throw new JournaledElsewhereException(holder);
+        }
+    }
+
+    // The holder renews its lease; everyone else notes who holds one
+    @Scheduled(fixedDelayString = "${transactions.journal.lease-renew-interval:10s}",
+               initialDelayString = "${transactions.journal.lease-renew-interval:10s}")
+    public void renewLease() {
+        if (enabled) {
+            boolean held = claimLease();
+            if (leaseHeld && !held) {
+                // Until it is back, this instance journals nothing and refuses checked transfers like any other;
+                // its backlog still flushes
+                log.error("Lost the transaction journal lease to another instance");
+            }
+            leaseHeld = held;
+            if (held) {
+                journaledBy = null;
+                return;
+            }
+        }
+        journaledBy = leaseRepository.findById(LEASE)
+                .filter(lease -> lease.getExpiresAt().isAfter(LocalDateTime.now()))
+                .map(JournalLease::getOwner)
+                .orElse(null);
+    }
+
+    // Takes the lease if it is free or expired, or renews it; false while another instance's is live
+    private boolean claimLease() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(leaseDuration);
+        try {
+            return transactionTemplate.execute(status -> {
+                if (leaseRepository.claim(LEASE, owner, now, expiresAt) == 1) {
+                    return true;
+                }
+                if (leaseRepository.existsById(LEASE)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new JournalLease(LEASE, owner, expiresAt));
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the row first
+            return false;
+        }
+    }
+
+    private long backlog() {
+        return journal.appendedCount() - flushed;
+    }
+
+    /**
+     * Reserves the sender's funds, assigns the transfer its ID and returns once the
+     * journal record is on disk. The transfer is then committed: the flusher writes it
+     * to the database, after a restart if need be.
+     *
+     * @throws InsufficientFundsException if the balance less reservations does not cover it
+     * @throws IllegalStateException if syncing stopped first (failed or shut down). The record
+     *         may have reached the disk anyway, so whether it is stored is known only after the
+     *         journal is replayed; its reservation is kept until then
+     */
+    public Transaction append(Transaction transaction) {
+        Long senderId = transaction.getSender().getId();
+        reserve(senderId, transaction.getAmount());
+        long sequence;
+        try {
+            transaction.setId(nextId(transaction));
+            sequence = journal.append(new JournalRecord(transaction.getId(), senderId,
+                    transaction.getReceiver().getId(), transaction.getAmount(), transaction.getTimestamp(),
+                    transaction.getFraudRiskScore()));
+        } catch (RuntimeException e) {
+            release(senderId, transaction.getAmount());
+            throw e;
+        }
+        // Appended: from here the record may be flushed, which releases the reservation. A slow sync
+        // or an interrupt is waited out, not failed: the record would be stored after an error said it was not
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (journal.awaitDurable(sequence, slowSyncWarning)) {
+                    break;
+                }
+                log.warn("Journal sync of transaction {} has taken over {}; still waiting",
+                        transaction.getId(), slowSyncWarning);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return transaction;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    // The funds check before scoring: the sender's balance less their reservations
+    public void checkFunds(Long senderId, double amount) {
+        ledgerService.checkFunds(senderId, amount, enabled ? reserved.getOrDefault(senderId, 0.0) : 0);
+    }
+
+    /**
+     * Reserves the sender's funds, as journaled transfers do. Direct saves take one while
+     * the journal is on, so both paths see each other's transfers until they are posted,
+     * and {@link #release} it once committed or failed. A no-op with the journal off.
+     *
+     * @throws InsufficientFundsException if the balance less reservations does not cover it
+     */
+    public void reserve(Long senderId, double amount) {
+        if (!enabled || !ledgerService.isEnforcingFunds()) {
+            return;
+        }
+        ReentrantLock lock = reservationLocks[Math.floorMod(senderId.hashCode(), RESERVATION_STRIPES)];
+        lock.lock();
+        try {
+            // Reservations are read before the balance: a flush landing in between is counted
+            // twice (refusing a transfer that would have fit), never not at all
+            double pending = reserved.getOrDefault(senderId, 0.0);
+            ledgerService.checkFunds(senderId, amount, pending);
+            reserved.merge(senderId, amount, Double::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(Long senderId, double amount) {
+        reserved.computeIfPresent(senderId, (id, pending) -> pending - amount > 1e-9 ? pending - amount : null);
+    }
+
+    // The next value of the transactions sequence, through Hibernate's pooled optimizer as inserts use it
+    private Long nextId(Transaction transaction) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, transaction, null,
+                    EventType.INSERT);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            try {
+                // A full batch, or whatever is durable once the interval is up
+                journal.awaitDurable(flushed + flushBatchSize - 1, flushInterval);
+            } catch (IllegalStateException e) {
+                // Syncing has stopped (shutdown or failure); flush what was synced before it
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<JournalRecord> batch = journal.read(flushed, flushBatchSize);
+            if (batch.isEmpty()) {
+                // Drained for shutdown, or nothing more will ever be synced
+                if (stopping && flushed == journal.appendedCount() || isSyncStopped()) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                flushTimer.record(() -> writeOrSetAside(batch));
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                log.error("Writing {} journal records failed; retrying", batch.size(), e);
+                if (!pause(Duration.ofSeconds(1))) {
+                    return;
+                }
+                continue;
+            }
+            flushed += batch.size();
+            journal.release(flushed);
+            for (JournalRecord record : batch) {
+                release(record.senderId(), record.amount());
+            }
+        }
+    }
+
+    // True once the journal's sync thread has failed or been closed; records appended since are never synced
+    private boolean isSyncStopped() {
+        try {
+            journal.awaitDurable(journal.durableCount(), Duration.ZERO);
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    private boolean pause(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return !stopping;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    // Replays records left by an earlier run, in flush-sized batches. Refused records are set aside;
+    // startup fails only if the database cannot be written at all
+    private void replay(List<JournalRecord> records) {
+        for (int from = 0; from < records.size(); from += flushBatchSize) {
+            writeOrSetAside(records.subList(from, Math.min(records.size(), from + flushBatchSize)));
+        }
+        if (!records.isEmpty()) {
+            log.info("Replayed {} journaled transactions", records.size());
+        }
+    }
+
+    /**
+     * Writes a batch. If the database refuses it outright, writes its records one at a
+     * time and sets aside those it refuses; any other failure is thrown, and the batch is
+     * tried again later.
+     */
+    private void writeOrSetAside(List<JournalRecord> batch) {
+        try {
+            write(batch);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Database refused a batch of {} journal records; writing them one at a time", batch.size(), e);
+            for (JournalRecord record : batch) {
+                try {
+                    write(List.of(record));
+                } catch (DataIntegrityViolationException refused) {
+                    deadLetter(record, refused);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the records' transactions and posts them to summaries and the ledger, in one
+     * database transaction. Records may already be stored: written before a crash, or by
+     * an earlier attempt at a batch that then failed part way. Those are skipped.
+     */
+    private void write(List<JournalRecord> records) {
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        records.forEach(record -> transactions.add(toTransaction(record)));
+        accountSummaryService.recordWithSummaries(transactions, unit -> {
+            Set<Long> stored = new HashSet<>(transactionRepository.findStoredIds(
+                    unit.stream().map(Transaction::getId).toList()));
+            unit.removeIf(tx -> stored.contains(tx.getId()));
+            insert(unit);
+            ledgerService.postAccepted(unit);
+        });
+    }
+
+    // Appends the record and why it was refused to the dead-letter file, synced before the journal lets go of it
+    private void deadLetter(JournalRecord record, DataIntegrityViolationException refused) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("transactionId", record.transactionId());
+        line.put("senderId", record.senderId());
+        line.put("receiverId", record.receiverId());
+        line.put("amount", record.amount());
+        line.put("timestamp", record.timestamp().toString());
+        line.put("fraudRiskScore", record.fraudRiskScore());
+        line.put("error", refused.getMostSpecificCause().getMessage());
+        try {
+            Files.writeString(directory.resolve(DEAD_LETTER_FILE), objectMapper.writeValueAsString(line) + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            // Not set aside: the flusher retries the batch rather than lose the record
+            throw new UncheckedIOException("Could not write journal record " + record.transactionId()
+                    + " to the dead-letter file", e);
+        }
+        deadLettered.increment();
+        log.error("Journal record {} refused by the database; moved to {}", record.transactionId(), DEAD_LETTER_FILE, refused);
+    }
+
+    private void insert(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            entityManager.unwrap(Session.class).doWork(connection -> insert(connection, transactions));
+        } catch (ConstraintViolationException e) {
+            // As a repository would report it, so the batch is told apart from a database that is down
+            throw new DataIntegrityViolationException(e.getMessage(), e);
+        }
+    }
+
+    private static void insert(Connection connection, List<Transaction> transactions) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (Transaction tx : transactions) {
+                statement.setLong(1, tx.getId());
+                statement.setLong(2, tx.getSender().getId());
+                statement.setLong(3, tx.getReceiver().getId());
+                statement.setDouble(4, tx.getAmount());
+                statement.setTimestamp(5, Timestamp.valueOf(tx.getTimestamp()));
+                statement.setInt(6, tx.getFraudRiskScore());
+                statement.setString(7, tx.getScoringStatus().name());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // Summaries and the ledger only need the parties' IDs
+    private static Transaction toTransaction(JournalRecord record) {
+        Transaction transaction = new Transaction(user(record.senderId()), user(record.receiverId()), record.amount());
+        transaction.setId(record.transactionId());
+        transaction.setTimestamp(record.timestamp());
+        transaction.setFraudRiskScore(record.fraudRiskScore());
+        transaction.setScoringStatus(ScoringStatus.SCORED);
+        return transaction;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    // Drains the journal into the database, then closes it; anything left is replayed on the next start
+    @PreDestroy
+    void shutdown() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        stopping = true;
+        // Syncs the last appends and wakes the flusher, which then writes without waiting for full batches
+        journal.seal();
+        flusher.join(Duration.ofSeconds(30).toMillis());
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            flusher.join();
+            log.warn("Journal flusher did not drain in time; {} records left for replay", backlog());
+        }
+        journal.close();
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.release(LEASE, owner));
+    }
+}
@@ -1,13 +1,31 @@
 package com.securebank.service;
 
+import com.securebank.dto.TransactionRequest;
+import com.securebank.metrics.PhaseTimer;
+import com.securebank.model.ScoringStatus;
 import com.securebank.model.Transaction;
 import com.securebank.model.User;
 import com.securebank.repository.TransactionRepository;
-import com.securebank.repository.UserRepository;
+import com.securebank.repository.TransactionSummaryView;
+import com.securebank.repository.TransactionTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
 
 @Service
 public class TransactionService {
@@ -16,13 +34,85 @@ public class TransactionService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Autowired
     private FraudScoringService fraudScoringService;
 
+    @Autowired
+    private FraudGraphWatermark fraudGraphWatermark;
+
+    @Autowired
+    private AsyncFraudScorer asyncFraudScorer;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private TransactionTiers transactionTiers;
+
+    @Autowired
+    private SenderThrottle senderThrottle;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${transactions.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${transactions.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${transactions.page.max-size:500}")
+    private int maxPageSize;
+
+    private final Map<String, PhaseTimer> methodTimers = new ConcurrentHashMap<>();
+    private Counter scoredInline;
+    private Counter scoredInBackground;
+    private Counter scoredInBatch;
+    private Counter journaled;
+
+    @PostConstruct
+    void initMetrics() {
+        scoredInline = created("sync");
+        scoredInBackground = created("async");
+        scoredInBatch = created("batch");
+        journaled = created("journal");
+    }
+
+    private Counter created(String scoring) {
+        return Counter.builder("securebank.transactions.created")
+                .description("Transactions saved, by how they were scored")
+                .tag("scoring", scoring)
+                .register(meterRegistry);
+    }
+
+    // One securebank.transaction.service timer per public method, tagged with its name
+    private PhaseTimer timed(String method) {
+        return methodTimers.computeIfAbsent(method, name -> PhaseTimer.of(meterRegistry,
+                "securebank.transaction.service", "Time spent in a TransactionService method",
+                "tx-" + name, "method", name));
+    }
+
     // ✅ Create a transaction with fraud scoring
     public Transaction createTransaction(Long senderId, Long receiverId, double amount) throws Exception {
+        return createTransaction(senderId, receiverId, amount, null);
+    }
+
+    // As above, also writing the idempotency key's row in the same database transaction
+    public Transaction createTransaction(Long senderId, Long receiverId, double amount,
+                                         IdempotencyService.Claim idempotencyClaim) throws Exception {
+        return timed("createTransaction").record(() -> doCreateTransaction(senderId, receiverId, amount, idempotencyClaim));
+    }
+
+    private Transaction doCreateTransaction(Long senderId, Long receiverId, double amount,
+                                            IdempotencyService.Claim idempotencyClaim) {
         // Validate amount
         if (amount <= 0) {
             throw new IllegalArgumentException("Transaction amount must be positive");
@@ -33,56 +123,303 @@ public class TransactionService {
             throw new IllegalArgumentException("Sender and receiver cannot be the same");
         }
 
-        User sender = userRepository.findById(senderId)
+        // Before any lookup, so a flooding sender costs next to nothing
+        senderThrottle.acquire(senderId);
+
+        User sender = userCache.findById(senderId)
                 .orElseThrow(() -> new IllegalArgumentException("Sender not found with ID: " + senderId));
 
-        User receiver = userRepository.findById(receiverId)
+        User receiver = userCache.findById(receiverId)
                 .orElseThrow(() -> new IllegalArgumentException("Receiver not found with ID: " + receiverId));
 
+        // Before scoring, so an overdraft is refused without the work; posting checks again.
+        // Net of journaled transfers, which the stored balance does not show until they are flushed
+        transactionJournal.checkWritable();
+        transactionJournal.checkFunds(senderId, amount);
+
         Transaction transaction = new Transaction(sender, receiver, amount);
 
+        // Journal mode: score inline and answer once the journal has the transfer on disk.
+        // Keyed requests take the direct path, whose idempotency row commits with the insert
+        if (idempotencyClaim == null && transactionJournal.hasRoom()) {
+            int fraudScore = fraudScoringService.calculateFraudScore(transaction);
+            transaction.setFraudRiskScore(fraudScore);
+            senderThrottle.recordScore(senderId, fraudScore);
+            Transaction appended = transactionJournal.append(transaction);
+            // Durable in the journal, so it will be stored: later scoring may count it from now on
+            fraudScoringService.recordAccepted(List.of(appended));
+            journaled.increment();
+            return appended;
+        }
+
+        // Direct path. Reserved like a journaled transfer until it commits, so neither path
+        // spends what the other has accepted but not yet posted
+        transactionJournal.reserve(senderId, amount);
+        try {
+            return saveDirect(transaction, idempotencyClaim);
+        } finally {
+            transactionJournal.release(senderId, amount);
+        }
+    }
+
+    private Transaction saveDirect(Transaction transaction, IdempotencyService.Claim idempotencyClaim) {
+        // Async mode: save as PENDING and score in the background while there is room
+        if (asyncFraudScorer.tryReserve()) {
+            transaction.setScoringStatus(ScoringStatus.PENDING);
+            Transaction saved;
+            try {
+                saved = saveWithSummaries(transaction, idempotencyClaim);
+            } catch (RuntimeException e) {
+                asyncFraudScorer.release();
+                throw e;
+            }
+            asyncFraudScorer.submit(saved);
+            scoredInBackground.increment();
+            return saved;
+        }
+
         // Calculate fraud score
         int fraudScore = fraudScoringService.calculateFraudScore(transaction);
         transaction.setFraudRiskScore(fraudScore);
+        senderThrottle.recordScore(transaction.getSender().getId(), fraudScore);
 
         // Save and return the transaction
-        return transactionRepository.save(transaction);
+        Transaction saved = saveWithSummaries(transaction, idempotencyClaim);
+        fraudScoringService.recordAccepted(List.of(saved));
+        scoredInline.increment();
+        return saved;
     }
 
-    // ✅ Get all transactions by sender ID
-    public List<Transaction> getTransactionsBySender(Long senderId) {
-        if (!userRepository.existsById(senderId)) {
-            throw new IllegalArgumentException("Sender not found with ID: " + senderId);
+    // Outcome of one item of a batch: the saved transaction, or why it was rejected
+    public record BatchOutcome(int index, Transaction transaction, String error) {
+    }
+
+    // Insert, account summary update and ledger posting commit together (see AccountSummaryService).
+    // Tracked for the fraud graph snapshot until the edge is added, which may be in the background
+    private Transaction saveWithSummaries(Transaction transaction, IdempotencyService.Claim idempotencyClaim) {
+        try (FraudGraphWatermark.Store store = fraudGraphWatermark.beginStore()) {
+            List<Transaction> stored = accountSummaryService.saveWithSummaries(List.of(transaction), saved -> {
+                ledgerService.post(saved);
+                if (idempotencyClaim != null) {
+                    idempotencyClaim.record(saved.get(0));
+                }
+            });
+            store.stored(stored);
+            return stored.get(0);
+        }
+    }
+
+    // ✅ Create many transactions at once: one user lookup, batched inserts.
+    // Scoring runs outside the database transaction, so a summary conflict only retries the inserts
+    public List<BatchOutcome> createTransactions(List<TransactionRequest> requests) {
+        return timed("createTransactions").record(() -> doCreateTransactions(requests));
+    }
+
+    private List<BatchOutcome> doCreateTransactions(List<TransactionRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch exceeds the limit of " + maxBatchSize + " transactions");
+        }
+        transactionJournal.checkWritable();
+
+        // Resolve every referenced user, querying only those not cached, in a single query
+        Set<Long> userIds = new HashSet<>();
+        for (TransactionRequest request : requests) {
+            if (request.getSenderId() != null) userIds.add(request.getSenderId());
+            if (request.getReceiverId() != null) userIds.add(request.getReceiverId());
+        }
+        Map<Long, User> users = userCache.findAllById(userIds);
+        // Senders' balances, drawn down as the batch is read so each sender's transfers are checked in order.
+        // With the journal on, each item is reserved against it instead, one balance read per item
+        Map<Long, Double> available = transactionJournal.isEnabled()
+                ? new HashMap<>() : ledgerService.getBalancesForCheck(userIds);
+        List<TransactionRequest> reserved = new ArrayList<>();
+        try {
+            return scoreAndSave(requests, users, available, reserved);
+        } finally {
+            reserved.forEach(request -> transactionJournal.release(request.getSenderId(), request.getAmount()));
+        }
+    }
+
+    private List<BatchOutcome> scoreAndSave(List<TransactionRequest> requests, Map<Long, User> users,
+                                            Map<Long, Double> available, List<TransactionRequest> reserved) {
+
+        // Score in request order, each item counting the accepted ones before it, so velocity
+        // sees the batch as a sequence of transfers; they are recorded for later scoring once stored
+        List<BatchOutcome> outcomes = new ArrayList<>(requests.size());
+        List<Transaction> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            String error = null;
+            if (!request.isValid()) {
+                error = "Invalid transaction data. Please check sender, receiver, and amount.";
+            } else if (!senderThrottle.tryAcquire(request.getSenderId())) {
+                error = "Too many transactions from sender " + request.getSenderId() + "; retry later";
+            } else if (!users.containsKey(request.getSenderId())) {
+                error = "Sender not found with ID: " + request.getSenderId();
+            } else if (!users.containsKey(request.getReceiverId())) {
+                error = "Receiver not found with ID: " + request.getReceiverId();
+            } else if (transactionJournal.isEnabled()) {
+                error = reserve(request, reserved);
+            } else if (ledgerService.isEnforcingFunds()
+                    && available.getOrDefault(request.getSenderId(), 0.0) < request.getAmount()) {
+                error = "Insufficient funds in account " + request.getSenderId() + " for " + request.getAmount();
+            }
+            if (error != null) {
+                outcomes.add(new BatchOutcome(i, null, error));
+                continue;
+            }
+
+            Transaction transaction = new Transaction(users.get(request.getSenderId()),
+                    users.get(request.getReceiverId()), request.getAmount());
+            transaction.setFraudRiskScore(fraudScoringService.calculateFraudScore(transaction, accepted));
+            senderThrottle.recordScore(request.getSenderId(), transaction.getFraudRiskScore());
+            available.merge(request.getSenderId(), -request.getAmount(), Double::sum);
+            accepted.add(transaction);
+            outcomes.add(new BatchOutcome(i, transaction, null));
+        }
+
+        // IDs come from the pooled sequence, so Hibernate can send these as JDBC batches
+        saveBatch(accepted, outcomes);
+        fraudScoringService.recordAccepted(accepted);
+        scoredInBatch.increment(accepted.size());
+        return outcomes;
+    }
+
+    // Reserves a batch item's funds against the journal until the batch commits; the rejection, if any
+    private String reserve(TransactionRequest request, List<TransactionRequest> reserved) {
+        try {
+            transactionJournal.reserve(request.getSenderId(), request.getAmount());
+        } catch (InsufficientFundsException e) {
+            return e.getMessage();
         }
-        return transactionRepository.findBySenderId(senderId);
+        reserved.add(request);
+        return null;
     }
 
-    // ✅ Get all transactions by receiver ID
-    public List<Transaction> getTransactionsByReceiver(Long receiverId) {
-        if (!userRepository.existsById(receiverId)) {
-            throw new IllegalArgumentException("Receiver not found with ID: " + receiverId);
+    /**
+     * Saves and posts the accepted items in one database transaction. A sender spent
+     * concurrently since the check fails posting; that item is rejected and the rest
+     * saved again.
+     */
+    private void saveBatch(List<Transaction> accepted, List<BatchOutcome> outcomes) {
+        try (FraudGraphWatermark.Store store = fraudGraphWatermark.beginStore()) {
+            saveBatch(accepted, outcomes, store);
         }
-        return transactionRepository.findByReceiverId(receiverId);
     }
 
-    // ✅ Get all transactions (for admin purposes)
-    public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+    private void saveBatch(List<Transaction> accepted, List<BatchOutcome> outcomes, FraudGraphWatermark.Store store) {
+        while (!accepted.isEmpty()) {
+            try {
+                store.stored(accountSummaryService.saveWithSummaries(accepted, ledgerService::post));
+                return;
+            } catch (InsufficientFundsException e) {
+                Transaction failed = e.getTransaction();
+                if (failed == null || !accepted.remove(failed)) {
+                    throw e;
+                }
+                for (int i = 0; i < outcomes.size(); i++) {
+                    if (outcomes.get(i).transaction() == failed) {
+                        outcomes.set(i, new BatchOutcome(outcomes.get(i).index(), null, e.getMessage()));
+                    }
+                }
+                // The rolled-back IDs were never stored
+                accepted.forEach(tx -> tx.setId(null));
+            }
+        }
+    }
+
+    // One page of a newest-first listing, and the cursor for the next page (null on the last one)
+    public record TransactionPage(List<TransactionSummaryView> transactions, String nextCursor) {
+    }
+
+    // ✅ Get a page of transactions by sender ID
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionsBySender(Long senderId, String cursor, Integer limit) {
+        return timed("getTransactionsBySender").record(() -> {
+            if (userCache.findById(senderId).isEmpty()) {
+                throw new IllegalArgumentException("Sender not found with ID: " + senderId);
+            }
+            return page(cursor, limit,
+                    (tier, first) -> tier.findFirstPageBySender(senderId, first),
+                    (tier, after, next) -> tier.findPageBySenderBefore(senderId, after.timestamp(), after.id(), next));
+        });
     }
 
-    // ✅ Get transaction by ID
+    // ✅ Get a page of transactions by receiver ID
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionsByReceiver(Long receiverId, String cursor, Integer limit) {
+        return timed("getTransactionsByReceiver").record(() -> {
+            if (userCache.findById(receiverId).isEmpty()) {
+                throw new IllegalArgumentException("Receiver not found with ID: " + receiverId);
+            }
+            return page(cursor, limit,
+                    (tier, first) -> tier.findFirstPageByReceiver(receiverId, first),
+                    (tier, after, next) -> tier.findPageByReceiverBefore(receiverId, after.timestamp(), after.id(), next));
+        });
+    }
+
+    // ✅ Get a page of all transactions (for admin purposes)
+    @Transactional(readOnly = true)
+    public TransactionPage getAllTransactions(String cursor, Integer limit) {
+        return timed("getAllTransactions").record(() -> page(cursor, limit,
+                TransactionTier::findFirstPage,
+                (tier, after, next) -> tier.findPageBefore(after.timestamp(), after.id(), next)));
+    }
+
+    // A keyset query continuing after a cursor, run against one storage tier
+    private interface PageAfter {
+        List<TransactionSummaryView> apply(TransactionTier tier, TransactionCursor after, Pageable pageable);
+    }
+
+    /**
+     * Runs a keyset query for one page, across the hot and archive tiers. One row more than
+     * the page size is read to tell whether another page follows, without a COUNT query.
+     */
+    private TransactionPage page(String cursor, Integer limit,
+                                 BiFunction<TransactionTier, Pageable, List<TransactionSummaryView>> firstPage,
+                                 PageAfter pageAfter) {
+        int size = limit == null ? defaultPageSize : limit;
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        size = Math.min(size, maxPageSize);
+
+        Pageable oneExtra = PageRequest.of(0, size + 1);
+        TransactionCursor after = cursor == null ? null : TransactionCursor.decode(cursor);
+        List<TransactionSummaryView> rows = transactionTiers.newestFirst(size + 1, tier -> after == null
+                ? firstPage.apply(tier, oneExtra)
+                : pageAfter.apply(tier, after, oneExtra));
+        if (rows.size() <= size) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionSummaryView> pageRows = rows.subList(0, size);
+        return new TransactionPage(pageRows, TransactionCursor.after(pageRows.get(size - 1)).encode());
+    }
+
+    // ✅ Get transaction by ID (hot table only: the entity is needed while the row can still change)
+    @Transactional(readOnly = true)
     public Transaction getTransactionById(Long id) {
-        return transactionRepository.findById(id)
+        return timed("getTransactionById").record(() -> transactionRepository.findById(id))
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found with ID: " + id));
+    }
+
+    // ✅ Get a transaction by ID as shown to clients, without loading entities
+    @Transactional(readOnly = true)
+    public TransactionSummaryView getTransactionSummary(Long id) {
+        return timed("getTransactionSummary").record(() -> transactionTiers.findSummaryById(id))
                 .orElseThrow(() -> new IllegalArgumentException("Transaction not found with ID: " + id));
     }
 
     // ✅ Get transaction count by sender (for analytics)
+    @Transactional(readOnly = true)
     public long getTransactionCountBySender(Long senderId) {
-        return transactionRepository.countBySenderId(senderId);
+        return timed("getTransactionCountBySender").record(() -> accountSummaryService.getSummary(senderId).getSentCount());
     }
 
-    // ✅ Get high-risk transactions (fraud score > 7)
-    public List<Transaction> getHighRiskTransactions() {
-        return transactionRepository.findByFraudRiskScoreGreaterThan(7);
+    // ✅ Get high-risk transactions (fraud score > 7) from both tiers, newest first
+    @Transactional(readOnly = true)
+    public List<TransactionSummaryView> getHighRiskTransactions() {
+        return timed("getHighRiskTransactions").record(() -> transactionTiers.newestFirst(Integer.MAX_VALUE,
+                tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7)));
     }
 }
@@ -0,0 +1,174 @@
+package com.securebank.service;
+
+import com.securebank.repository.ArchivedTransactionRepository;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.TransactionSummaryView;
+import com.securebank.repository.TransactionTier;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Routes transaction reads to the hot table and, only when the requested range can reach
+ * it, the archive, merging the results so callers see one table.
+ *
+ * The routing key is the newest timestamp the archive can hold: a newest-first page that
+ * the hot table fills with rows newer than that never touches the archive, which is every
+ * page of recent history. Any instance may archive, so the key is never taken from what
+ * this instance has seen alone: it is at least the archiving cutoff, {@code
+ * transactions.archive.max-age} ago, below which every instance may already have moved rows.
+ */
+@Component
+public class TransactionTiers {
+
+    private static final Comparator<TransactionSummaryView> NEWEST_FIRST =
+            Comparator.comparing(TransactionSummaryView::getTimestamp)
+                    .thenComparing(TransactionSummaryView::getId)
+                    .reversed();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Value("${transactions.archive.enabled:true}")
+    private boolean archiving;
+
+    @Value("${transactions.archive.max-age:90d}")
+    private Duration maxAge;
+
+    // Newest timestamp this instance has seen archived (null while none); only ever raised, since
+    // a read taken before another instance's run finished must not lower it
+    private volatile LocalDateTime archivedUpTo;
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${transactions.archive.boundary-refresh:1m}",
+               initialDelayString = "${transactions.archive.boundary-refresh:1m}")
+    public void refreshBoundary() {
+        LocalDateTime newest = archivedTransactionRepository.findMaxTimestamp();
+        if (newest != null) {
+            archivingBefore(newest);
+        }
+    }
+
+    // Called before rows older than the cutoff are moved, so no reader here skips the archive while they are
+    synchronized void archivingBefore(LocalDateTime cutoff) {
+        LocalDateTime current = archivedUpTo;
+        if (current == null || cutoff.isAfter(current)) {
+            archivedUpTo = cutoff;
+        }
+    }
+
+    // Newest timestamp the archive may hold, null if it can hold nothing
+    private LocalDateTime boundary() {
+        LocalDateTime seen = archivedUpTo;
+        if (!archiving) {
+            return seen;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(maxAge);
+        return seen == null || cutoff.isAfter(seen) ? cutoff : seen;
+    }
+
+    public List<TransactionTier> all() {
+        return List.of(transactionRepository, archivedTransactionRepository);
+    }
+
+    // A hot miss always checks the archive: another instance may have moved the row
+    public Optional<TransactionSummaryView> findSummaryById(Long id) {
+        Optional<TransactionSummaryView> hot = transactionRepository.findSummaryById(id);
+        if (hot.isPresent()) {
+            return hot;
+        }
+        return archivedTransactionRepository.findSummaryById(id);
+    }
+
+    /**
+     * Runs a newest-first query that returns at most {@code rows} rows against the hot table,
+     * and against the archive too when the hot rows alone don't prove the page complete.
+     * A row archived between the two reads is seen in both and returned once.
+     */
+    public List<TransactionSummaryView> newestFirst(int rows, Function<TransactionTier, List<TransactionSummaryView>> query) {
+        List<TransactionSummaryView> hot = query.apply(transactionRepository);
+        LocalDateTime boundary = boundary();
+        if (boundary == null || (hot.size() >= rows && hot.get(rows - 1).getTimestamp().isAfter(boundary))) {
+            return hot;
+        }
+        Set<Long> hotIds = new HashSet<>();
+        hot.forEach(row -> hotIds.add(row.getId()));
+        List<TransactionSummaryView> merged = new ArrayList<>(hot);
+        for (TransactionSummaryView row : query.apply(archivedTransactionRepository)) {
+            if (!hotIds.contains(row.getId())) {
+                merged.add(row);
+            }
+        }
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > rows ? merged.subList(0, rows) : merged;
+    }
+
+    // Both tiers' export streams merged in ID order; must be consumed inside a transaction
+    public Stream<TransactionSummaryView> streamForExport(LocalDateTime from, LocalDateTime to, Long senderId,
+                                                          int minScore, int maxScore, boolean includePending) {
+        Stream<TransactionSummaryView> hot = transactionRepository.streamForExport(
+                from, to, senderId, minScore, maxScore, includePending);
+        LocalDateTime boundary = boundary();
+        if (boundary == null || from.isAfter(boundary)) {
+            return hot;
+        }
+        Stream<TransactionSummaryView> archived = archivedTransactionRepository.streamForExport(
+                from, to, senderId, minScore, maxScore, includePending);
+        return mergeById(archived, hot);
+    }
+
+    private static Stream<TransactionSummaryView> mergeById(Stream<TransactionSummaryView> first,
+                                                            Stream<TransactionSummaryView> second) {
+        Iterator<TransactionSummaryView> a = first.iterator();
+        Iterator<TransactionSummaryView> b = second.iterator();
+        Iterator<TransactionSummaryView> merged = new Iterator<>() {
+            private TransactionSummaryView nextA = a.hasNext() ? a.next() : null;
+            private TransactionSummaryView nextB = b.hasNext() ? b.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextA != null || nextB != null;
+            }
+
+            @Override
+            public TransactionSummaryView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TransactionSummaryView row;
+                if (nextB == null || (nextA != null && nextA.getId() < nextB.getId())) {
+                    row = nextA;
+                    nextA = a.hasNext() ? a.next() : null;
+                } else {
+                    row = nextB;
+                    nextB = b.hasNext() ? b.next() : null;
+                }
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+}
@@ -0,0 +1,111 @@
+package com.securebank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securebank.model.User;
+import com.securebank.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Users by ID and by email, so the hot path (JWT filter, transfers) doesn't query the
+ * users table on every request. Bounded by {@code users.cache.max-size} per key and
+ * expired {@code users.cache.ttl} after loading.
+ *
+ * Cached users are detached and shared between threads: treat them as read-only.
+ * Anything that changes a user must call {@link #invalidate}. Invalidation is local, so
+ * with several instances another node may serve a changed user until its TTL runs out.
+ * Unknown IDs and emails are not cached.
+ */
+@Component
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${users.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${users.cache.ttl:10m}")
+    private Duration ttl;
+
+    private Cache<Long, User> byId;
+    private Cache<String, User> byEmail;
+
+    @PostConstruct
+    void init() {
+        byId = newCache();
+        byEmail = newCache();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, tagged cache=users.by-id / users.by-email
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.by-email");
+    }
+
+    private <K> Cache<K, User> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(byId.get(id, key -> userRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email, key -> userRepository.findByEmail(key).orElse(null)));
+    }
+
+    // Every user found among the IDs, loading all misses in one query
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        return byId.getAll(ids, missing -> {
+            Map<Long, User> loaded = new HashMap<>();
+            for (User user : userRepository.findAllById(List.copyOf(missing))) {
+                loaded.put(user.getId(), user);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Drops a user from both caches, now and again once the surrounding transaction ends,
+     * so a concurrent read can't re-cache the old row in between.
+     */
+    public void invalidate(Long id, String email) {
+        evict(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, email);
+                }
+            });
+        }
+    }
+
+    private void evict(Long id, String email) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+    }
+}
@@ -6,4 +6,5 @@ import java.util.Optional;
 public interface UserService {
     User registerUser(User user);
     Optional<User> findByEmail(String email);
+    void revokeTokens(String email);
 }
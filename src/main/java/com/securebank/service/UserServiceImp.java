@@ -2,9 +2,14 @@ package com.securebank.service;
 
 import com.securebank.model.User;
 import com.securebank.repository.UserRepository;
+import com.securebank.security.TokenDenyList;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
@@ -14,19 +19,65 @@ public class UserServiceImp implements UserService {
     @Autowired
     private UserRepository userRepository;
 
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    // Hashes on the bounded hashing pool, not the request thread
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     @Override
     public User registerUser(User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Email already registered!");
-        }
+        // Hash before the transaction starts, so no pooled connection is held while BCrypt runs or queues
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        return transactionTemplate.execute(status -> {
+            if (userRepository.existsByEmail(user.getEmail())) {
+                throw new RuntimeException("Email already registered!");
+            }
+            User saved = userRepository.save(user);
+            userCache.invalidate(saved.getId(), saved.getEmail());
+            // Start with an empty account summary so the first transfer only has to update it
+            accountSummaryService.createFor(saved.getId());
+            ledgerService.createFor(saved.getId());
+            return saved;
+        });
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userCache.findByEmail(email);
+    }
+
+    // Bumping the version invalidates every token carrying an older one
+    @Override
+    @Transactional
+    public void revokeTokens(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with email: " + email));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        userCache.invalidate(user.getId(), user.getEmail());
+        // Once committed, so a rolled-back revocation rejects nothing; other instances pick
+        // it up on their next deny-list refresh
+        Long userId = user.getId();
+        int tokenVersion = user.getTokenVersion();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tokenDenyList.revokeBelow(userId, tokenVersion);
+            }
+        });
     }
 }
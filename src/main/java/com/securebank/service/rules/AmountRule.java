@@ -0,0 +1,33 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Higher amounts carry higher risk
+@Component
+public class AmountRule implements FraudRule {
+
+    @Value("${fraud.rules.amount.high-threshold:100000}")
+    private double highThreshold;
+
+    @Value("${fraud.rules.amount.medium-threshold:50000}")
+    private double mediumThreshold;
+
+    @Override
+    public String name() {
+        return "amount";
+    }
+
+    @Override
+    public int evaluate(Transaction tx) {
+        return (tx.getAmount() > highThreshold) ? 3
+                : (tx.getAmount() > mediumThreshold) ? 2
+                : 1;
+    }
+
+    @Override
+    public int baseScore() {
+        return 1;
+    }
+}
@@ -0,0 +1,41 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import com.securebank.service.FraudGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Transfers that close a money loop in the fraud graph
+@Component
+public class CycleRule implements FraudRule {
+
+    @Autowired
+    private FraudGraph fraudGraph;
+
+    @Value("${fraud.rules.cycle.score:3}")
+    private int cycleScore;
+
+    @Override
+    public String name() {
+        return "cycle";
+    }
+
+    @Override
+    public int evaluate(Transaction tx) {
+        return evaluate(tx, List.of());
+    }
+
+    @Override
+    public int evaluate(Transaction tx, List<Transaction> earlier) {
+        return fraudGraph.closesCycle(tx.getSender().getId(), tx.getReceiver().getId(), earlier) ? cycleScore : 0;
+    }
+
+    @Override
+    public int cost() {
+        // Bounded graph search
+        return 100;
+    }
+}
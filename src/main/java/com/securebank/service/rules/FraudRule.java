@@ -0,0 +1,38 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+
+import java.util.List;
+
+/**
+ * One independent check contributing to a transaction's fraud risk score.
+ *
+ * Rules are discovered as Spring beans, so adding a rule means adding a
+ * {@code @Component} that implements this interface. Rules must not change
+ * shared state: the graph edge and sender activity are recorded by
+ * {@link com.securebank.service.FraudScoringService} once the transfer is stored, so
+ * a rule that is skipped or runs in parallel never loses an update.
+ */
+public interface FraudRule {
+
+    // Short, stable name used in configuration (fraud.rules.<name>.*) and metrics
+    String name();
+
+    // Score this rule contributes for the transaction
+    int evaluate(Transaction tx);
+
+    // As above, counting earlier transfers of the same batch that are scored but not stored yet
+    default int evaluate(Transaction tx, List<Transaction> earlier) {
+        return evaluate(tx);
+    }
+
+    // Score returned when nothing looks suspicious; anything above counts as a hit
+    default int baseScore() {
+        return 0;
+    }
+
+    // Relative cost; cheaper rules run first unless fraud.rules.<name>.order overrides it
+    default int cost() {
+        return 0;
+    }
+}
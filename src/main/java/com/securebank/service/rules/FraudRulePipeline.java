@@ -0,0 +1,170 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the enabled {@link FraudRule}s against a transaction and sums their scores.
+ *
+ * Rules run cheapest first. Once the running score passes
+ * {@code fraud.pipeline.short-circuit-score} the remaining rules are skipped.
+ * Rules whose cost is at least {@code fraud.pipeline.parallel-min-cost} can be
+ * run concurrently on virtual threads when {@code fraud.pipeline.parallel} is on.
+ * Every rule gets a latency histogram ({@code fraud.rule.latency}) and a hit
+ * counter ({@code fraud.rule.hits}), tagged with the rule name.
+ */
+@Service
+public class FraudRulePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(FraudRulePipeline.class);
+
+    @Autowired
+    private List<FraudRule> rules;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    // Stop evaluating once the score is above this; 0 always runs every rule
+    @Value("${fraud.pipeline.short-circuit-score:0}")
+    private int shortCircuitScore;
+
+    @Value("${fraud.pipeline.parallel:false}")
+    private boolean parallel;
+
+    @Value("${fraud.pipeline.parallel-min-cost:50}")
+    private int parallelMinCost;
+
+    private List<RegisteredRule> sequentialRules;
+    private List<RegisteredRule> parallelRules;
+    private Counter shortCircuits;
+    private ExecutorService executor;
+
+    private record RegisteredRule(FraudRule rule, Timer latency, Counter hits) {
+    }
+
+    @PostConstruct
+    void init() {
+        List<FraudRule> ordered = rules.stream()
+                .filter(rule -> environment.getProperty("fraud.rules." + rule.name() + ".enabled", Boolean.class, true))
+                .sorted(Comparator.comparingInt(this::order))
+                .toList();
+
+        sequentialRules = new ArrayList<>();
+        parallelRules = new ArrayList<>();
+        for (FraudRule rule : ordered) {
+            RegisteredRule registered = new RegisteredRule(rule,
+                    Timer.builder("fraud.rule.latency")
+                            .description("Time spent evaluating a fraud rule")
+                            .tag("rule", rule.name())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    Counter.builder("fraud.rule.hits")
+                            .description("Evaluations where a fraud rule scored above its base score")
+                            .tag("rule", rule.name())
+                            .register(meterRegistry));
+            if (parallel && order(rule) >= parallelMinCost) {
+                parallelRules.add(registered);
+            } else {
+                sequentialRules.add(registered);
+            }
+        }
+        if (parallelRules.size() < 2) {
+            // Nothing to overlap; running alone on another thread only adds a hand-off
+            sequentialRules.addAll(parallelRules);
+            parallelRules.clear();
+        } else {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        shortCircuits = Counter.builder("fraud.pipeline.short-circuits")
+                .description("Scorings that stopped early after passing the short-circuit score")
+                .register(meterRegistry);
+
+        log.info("Fraud rules in order: {}{}", sequentialRules.stream().map(r -> r.rule().name()).toList(),
+                parallelRules.isEmpty() ? "" : ", in parallel: " + parallelRules.stream().map(r -> r.rule().name()).toList());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public int evaluate(Transaction tx) {
+        return evaluate(tx, List.of());
+    }
+
+    // Scores a batch item; earlier holds the batch's items before it, which are not stored yet
+    public int evaluate(Transaction tx, List<Transaction> earlier) {
+        int score = 0;
+        for (RegisteredRule registered : sequentialRules) {
+            score += run(registered, tx, earlier);
+            if (passedShortCircuit(score)) {
+                shortCircuits.increment();
+                return score;
+            }
+        }
+        if (parallelRules.isEmpty()) {
+            return score;
+        }
+
+        List<Future<Integer>> results = new ArrayList<>(parallelRules.size());
+        for (RegisteredRule registered : parallelRules) {
+            results.add(executor.submit(() -> run(registered, tx, earlier)));
+        }
+        try {
+            for (Future<Integer> result : results) {
+                score += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scoring transaction", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Fraud rule failed", e.getCause());
+        }
+        return score;
+    }
+
+    private int run(RegisteredRule registered, Transaction tx, List<Transaction> earlier) {
+        long start = System.nanoTime();
+        int score = registered.rule().evaluate(tx, earlier);
+        registered.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (score > registered.rule().baseScore()) {
+            registered.hits().increment();
+        }
+        return score;
+    }
+
+    private boolean passedShortCircuit(int score) {
+        return shortCircuitScore > 0 && score > shortCircuitScore;
+    }
+
+    private int order(FraudRule rule) {
+        return environment.getProperty("fraud.rules." + rule.name() + ".order", Integer.class, rule.cost());
+    }
+}
@@ -0,0 +1,58 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import com.securebank.service.FraudGraph;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Senders spreading money to many distinct receivers are suspicious
+@Component
+public class OutDegreeRule implements FraudRule {
+
+    @Autowired
+    private FraudGraph fraudGraph;
+
+    @Value("${fraud.rules.out-degree.high-threshold:10}")
+    private int highThreshold;
+
+    @Value("${fraud.rules.out-degree.medium-threshold:5}")
+    private int mediumThreshold;
+
+    @Override
+    public String name() {
+        return "out-degree";
+    }
+
+    @Override
+    public int evaluate(Transaction tx) {
+        return evaluate(tx, List.of());
+    }
+
+    @Override
+    public int evaluate(Transaction tx, List<Transaction> earlier) {
+        // The graph only has stored transfers; this receiver and the batch's earlier ones count too
+        List<Long> newReceivers = new ArrayList<>();
+        newReceivers.add(tx.getReceiver().getId());
+        for (Transaction prior : earlier) {
+            if (prior.getSender().getId().equals(tx.getSender().getId())) {
+                newReceivers.add(prior.getReceiver().getId());
+            }
+        }
+        int outDegree = fraudGraph.getOutDegree(tx.getSender().getId(), newReceivers);
+        return (outDegree > highThreshold) ? 3 : (outDegree > mediumThreshold) ? 2 : 1;
+    }
+
+    @Override
+    public int baseScore() {
+        return 1;
+    }
+
+    @Override
+    public int cost() {
+        return 10;
+    }
+}
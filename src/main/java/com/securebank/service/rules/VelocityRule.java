@@ -0,0 +1,91 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import com.securebank.service.SenderActivityTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Rapid or bursty transfers from the same sender
+@Component
+public class VelocityRule implements FraudRule {
+
+    @Autowired
+    private SenderActivityTracker senderActivityTracker;
+
+    // Gaps shorter than these score 3 and 2 respectively
+    @Value("${fraud.rules.velocity.high-gap:1m}")
+    private Duration highGap;
+
+    @Value("${fraud.rules.velocity.medium-gap:5m}")
+    private Duration mediumGap;
+
+    // Earlier transfers inside the burst window that make the next one a burst
+    @Value("${fraud.velocity.burst-count:5}")
+    private int burstCount;
+
+    @Value("${fraud.velocity.burst-window:10m}")
+    private Duration burstWindow;
+
+    @Override
+    public String name() {
+        return "velocity";
+    }
+
+    @Override
+    public int evaluate(Transaction tx) {
+        return evaluate(tx, List.of());
+    }
+
+    @Override
+    public int evaluate(Transaction tx, List<Transaction> earlier) {
+        int velocityScore = 1; // default low risk
+        Long senderId = tx.getSender().getId();
+        LocalDateTime burstStart = tx.getTimestamp().minus(burstWindow);
+
+        // Latest transaction by this sender, served from the in-memory activity ring
+        LocalDateTime lastTxTime = senderActivityTracker.getLastTransactionTime(senderId, tx.getId());
+        int recentCount = senderActivityTracker.countSince(senderId, tx.getId(), burstStart);
+
+        // The tracker only has stored transfers; earlier items of the same batch count too
+        for (Transaction prior : earlier) {
+            if (!prior.getSender().getId().equals(senderId)) {
+                continue;
+            }
+            if (lastTxTime == null || prior.getTimestamp().isAfter(lastTxTime)) {
+                lastTxTime = prior.getTimestamp();
+            }
+            if (!prior.getTimestamp().isBefore(burstStart)) {
+                recentCount++;
+            }
+        }
+
+        if (lastTxTime != null) {
+            Duration gap = Duration.between(lastTxTime, tx.getTimestamp());
+
+            if (gap.compareTo(highGap) < 0) velocityScore = 3;
+            else if (gap.compareTo(mediumGap) < 0) velocityScore = 2;
+        }
+
+        // A burst of transfers inside the window is high risk even when each gap looks normal
+        if (recentCount >= burstCount) {
+            velocityScore = 3;
+        }
+        return velocityScore;
+    }
+
+    @Override
+    public int baseScore() {
+        return 1;
+    }
+
+    @Override
+    public int cost() {
+        // May warm the sender's activity ring from the database
+        return 50;
+    }
+}
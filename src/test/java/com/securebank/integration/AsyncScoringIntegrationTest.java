@@ -0,0 +1,114 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.dto.TransactionRequest;
+import com.securebank.model.ScoringStatus;
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the background scorer must see the committed row
+@SpringBootTest(properties = "fraud.scoring.async.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AsyncScoringIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User sender;
+    private User receiver;
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        sender = saveUser("async1@example.com");
+        receiver = saveUser("async2@example.com");
+        jwtToken = jwtUtil.generateToken(sender.getEmail());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testTransactionIsAcceptedAndScoredInBackground() throws Exception {
+        TransactionRequest transactionRequest = new TransactionRequest(
+            sender.getId(), receiver.getId(), 150000.0
+        );
+
+        MvcResult result = mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transactionRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(header().exists("Location"))
+                .andReturn();
+
+        Long id = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+
+        // Poll until the background scorer writes the score back
+        Transaction scored = null;
+        for (int i = 0; i < 100; i++) {
+            scored = transactionRepository.findById(id).orElseThrow();
+            if (scored.getScoringStatus() == ScoringStatus.SCORED) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(ScoringStatus.SCORED, scored.getScoringStatus());
+        // Amount over 100,000: 3; first transfer, so velocity 1 (it is not its own history); out-degree 1
+        assertEquals(5, scored.getFraudRiskScore());
+
+        mockMvc.perform(get("/api/transactions/" + id + "/status")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scoringStatus").value("SCORED"))
+                .andExpect(jsonPath("$.fraudRiskScore").value(scored.getFraudRiskScore()));
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("password123"));
+        return userRepository.save(user);
+    }
+}
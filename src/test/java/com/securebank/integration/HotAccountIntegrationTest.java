@@ -0,0 +1,166 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.dto.TransactionRequest;
+import com.securebank.model.User;
+import com.securebank.model.UserAccountSummary;
+import com.securebank.repository.AccountBalanceRepository;
+import com.securebank.repository.AccountCounterpartyRepository;
+import com.securebank.repository.AccountSummarySlotRepository;
+import com.securebank.repository.LedgerEntryRepository;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.UserAccountSummaryRepository;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.JwtUtil;
+import com.securebank.service.AccountSummaryService;
+import com.securebank.service.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the transfers must commit concurrently, as they would in production.
+// Each sender sends faster than the rate limit allows; only the summary writes are under test
+@SpringBootTest(properties = "transactions.throttle.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class HotAccountIntegrationTest {
+
+    private static final int SENDERS = 8;
+    private static final int TRANSFERS_EACH = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private AccountBalanceRepository balanceRepository;
+
+    @Autowired
+    private UserAccountSummaryRepository summaryRepository;
+
+    @Autowired
+    private AccountSummarySlotRepository slotRepository;
+
+    @Autowired
+    private AccountCounterpartyRepository counterpartyRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final List<User> senders = new ArrayList<>();
+    private User merchant;
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        for (int i = 0; i < SENDERS; i++) {
+            senders.add(saveUser("hot-sender-" + i + "@example.com"));
+        }
+        merchant = saveUser("hot-merchant@example.com");
+        ledgerService.splitAccount(merchant.getId(), 4);
+        jwtToken = jwtUtil.generateToken(senders.get(0).getEmail());
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Everything committed here, so contexts sharing the database afterwards start clean
+        ledgerEntryRepository.deleteAllInBatch();
+        balanceRepository.deleteAllInBatch();
+        slotRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+        counterpartyRepository.deleteAllInBatch();
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConcurrentTransfersIntoOneHotReceiverAllSucceed() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(SENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        try {
+            for (User sender : senders) {
+                String body = objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), merchant.getId(), 10.0));
+                results.add(pool.submit(() -> {
+                    start.await();
+                    List<Integer> statuses = new ArrayList<>();
+                    for (int i = 0; i < TRANSFERS_EACH; i++) {
+                        statuses.add(mockMvc.perform(post("/api/transactions/create")
+                                .header("Authorization", "Bearer " + jwtToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andReturn().getResponse().getStatus());
+                    }
+                    return statuses;
+                }));
+            }
+            start.countDown();
+            for (Future<List<Integer>> result : results) {
+                // Without slots, writers on the merchant's versioned summary run out of retries here
+                assertTrue(result.get().stream().allMatch(status -> status == 200), "statuses: " + result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int total = SENDERS * TRANSFERS_EACH;
+        UserAccountSummary summary = accountSummaryService.getSummary(merchant.getId());
+        assertEquals(total, summary.getReceivedCount());
+        assertEquals(total * 10.0, summary.getReceivedTotal());
+        assertEquals(SENDERS, summary.getDistinctCounterparties());
+        assertEquals(total * 10.0, ledgerService.getBalance(merchant.getId()));
+
+        // A rebuild folds the slots back into the merchant's row and gets the same numbers
+        accountSummaryService.rebuild();
+        UserAccountSummary rebuilt = accountSummaryService.getSummary(merchant.getId());
+        assertEquals(total, rebuilt.getReceivedCount());
+        assertEquals(SENDERS, rebuilt.getDistinctCounterparties());
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("password123"));
+        return userRepository.save(user);
+    }
+}
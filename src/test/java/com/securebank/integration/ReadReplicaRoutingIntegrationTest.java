@@ -0,0 +1,116 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.dto.TransactionRequest;
+import com.securebank.model.User;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Two H2 databases stand in for primary and replica; replication is a full copy the test triggers
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.replica.username=sa",
+    "spring.datasource.replica.password=",
+    "spring.datasource.replica.pin-after-write=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ReadReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private User sender;
+    private User receiver;
+
+    @BeforeEach
+    void setUp() {
+        sender = saveUser("replica-sender-" + System.nanoTime() + "@example.com");
+        receiver = saveUser("replica-receiver-" + System.nanoTime() + "@example.com");
+        replicate();
+    }
+
+    @Test
+    void testReadsGoToReplicaExceptForRecentWriters() throws Exception {
+        String senderToken = jwtUtil.generateToken(sender.getEmail());
+        String receiverToken = jwtUtil.generateToken(receiver.getEmail());
+
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + senderToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 500.0))))
+                .andExpect(status().isOk());
+
+        // The writer is pinned to the primary and sees the write at once
+        mockMvc.perform(get("/api/transactions/sender/" + sender.getId())
+                .header("Authorization", "Bearer " + senderToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        // Anyone else reads the replica, which hasn't received it yet
+        mockMvc.perform(get("/api/transactions/receiver/" + receiver.getId())
+                .header("Authorization", "Bearer " + receiverToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        replicate();
+        mockMvc.perform(get("/api/transactions/receiver/" + receiver.getId())
+                .header("Authorization", "Bearer " + receiverToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("password123"));
+        return userRepository.save(user);
+    }
+
+    // Copies the whole primary database, schema and rows, onto the replica
+    private void replicate() {
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("SCRIPT", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+}
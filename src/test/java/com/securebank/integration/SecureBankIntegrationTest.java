@@ -1,13 +1,38 @@
 package com.securebank.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.securebank.dto.AuthRequest;
 import com.securebank.dto.AuthResponse;
+import com.securebank.dto.DepositRequest;
 import com.securebank.dto.TransactionRequest;
 import com.securebank.dto.TransactionResponse;
+import com.securebank.metrics.ServerTimingFilter;
+import com.securebank.controller.TransactionController;
+import com.securebank.model.Transaction;
 import com.securebank.model.User;
-import com.securebank.repository.UserRepository;
+import com.securebank.repository.AccountCounterpartyRepository;
+import com.securebank.repository.LedgerEntryRepository;
 import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.TransactionSummaryView;
+import com.securebank.repository.UserAccountSummaryRepository;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.AdmissionControlFilter;
+import com.securebank.security.BoundedPasswordEncoder;
+import com.securebank.security.JwtAuthenticationFilter;
+import com.securebank.security.TokenDenyList;
+import com.securebank.service.AccountSummaryService;
+import com.securebank.service.CustomUserDetailsService;
+import com.securebank.service.IdempotencyService;
+import com.securebank.service.LedgerService;
+import com.securebank.service.SenderThrottle;
+import com.securebank.service.TransactionArchiver;
+import com.securebank.service.TransactionService;
+import com.securebank.service.TransactionTiers;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,9 +40,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +78,60 @@ public class SecureBankIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private ServerTimingFilter serverTimingFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private TransactionTiers transactionTiers;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private TokenDenyList tokenDenyList;
+
+    @Autowired
+    private AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private SenderThrottle senderThrottle;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    private UserAccountSummaryRepository summaryRepository;
+
+    @Autowired
+    private AccountCounterpartyRepository counterpartyRepository;
+
     private User testUser1;
     private User testUser2;
     private String jwtToken;
@@ -257,4 +348,609 @@ public class SecureBankIntegrationTest {
         // High amount should result in a higher fraud score
         assertTrue(response.getFraudRiskScore() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRapidTransfersRaiseVelocityScore() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        TransactionRequest transactionRequest = new TransactionRequest(
+            sender.getId(), receiver.getId(), 100.0
+        );
+
+        // First transfer has no history: amount 1 + velocity 1 + out-degree 1
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transactionRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fraudRiskScore").value(3));
+
+        // Second transfer within a minute gets the highest velocity score
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transactionRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fraudRiskScore").value(5));
+    }
+
+    @Test
+    void testBatchCreateReportsEveryItem() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        List<TransactionRequest> batch = List.of(
+            new TransactionRequest(sender.getId(), receiver.getId(), 100.0),
+            new TransactionRequest(sender.getId(), sender.getId(), 100.0), // same sender and receiver
+            new TransactionRequest(sender.getId(), 999_999L, 100.0),       // unknown receiver
+            new TransactionRequest(receiver.getId(), sender.getId(), 250.0)
+        );
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].result").value("CREATED"))
+                .andExpect(jsonPath("$[0].transaction.id").exists())
+                .andExpect(jsonPath("$[1].result").value("REJECTED"))
+                .andExpect(jsonPath("$[2].result").value("REJECTED"))
+                .andExpect(jsonPath("$[2].error").value("Receiver not found with ID: 999999"))
+                .andExpect(jsonPath("$[3].result").value("CREATED"))
+                .andExpect(jsonPath("$[3].transaction.amount").value(250.0));
+
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    void testServerTimingBreaksDownCreateRequest() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+        TransactionRequest transactionRequest = new TransactionRequest(sender.getId(), receiver.getId(), 500.0);
+
+        ReflectionTestUtils.setField(serverTimingFilter, "enabled", true);
+        try {
+            MvcResult result = mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transactionRequest)))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            String serverTiming = result.getResponse().getHeader(ServerTimingFilter.HEADER);
+            assertNotNull(serverTiming);
+            for (String phase : List.of("jwt;", "user-details;", "db-findById;desc=\"4 calls\"",
+                    "fraud-graph;", "fraud-rules;", "db-saveAll;", "db-existsById;", "tx-createTransaction;", "total;dur=")) {
+                assertTrue(serverTiming.contains(phase), phase + " missing from " + serverTiming);
+            }
+            // The user behind the token was cached at login
+            assertFalse(serverTiming.contains("db-findByEmail"), serverTiming);
+        } finally {
+            ReflectionTestUtils.setField(serverTimingFilter, "enabled", false);
+        }
+
+        assertTrue(meterRegistry.get("securebank.transaction.service")
+                .tag("method", "createTransaction").timer().count() > 0);
+        assertTrue(meterRegistry.get("spring.data.repository.invocations")
+                .tag("repository", "UserRepository").timer().count() > 0);
+    }
+
+    @Test
+    void testListingsArePagedWithCursor() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+        for (int i = 1; i <= 5; i++) {
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), i * 100.0))))
+                    .andExpect(status().isOk());
+        }
+
+        // Walk the sender's history two at a time, newest first
+        List<Double> amounts = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/transactions/sender/" + sender.getId())
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn();
+            TransactionResponse[] page = objectMapper.readValue(result.getResponse().getContentAsString(), TransactionResponse[].class);
+            assertTrue(page.length <= 2);
+            for (TransactionResponse tx : page) {
+                amounts.add(tx.getAmount());
+            }
+            cursor = result.getResponse().getHeader("X-Next-Cursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(500.0, 400.0, 300.0, 200.0, 100.0), amounts);
+
+        mockMvc.perform(get("/api/transactions/all")
+                .header("Authorization", "Bearer " + jwtToken)
+                .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetTransactionByIdFromProjection() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        MvcResult created = mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 150000.0))))
+                .andExpect(status().isOk())
+                .andReturn();
+        Long id = objectMapper.readValue(created.getResponse().getContentAsString(), TransactionResponse.class).getId();
+
+        // Start from an empty persistence context so any entity the read touches has to be loaded
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            mockMvc.perform(get("/api/transactions/" + id)
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(id))
+                    .andExpect(jsonPath("$.senderEmail").value("test1@example.com"))
+                    .andExpect(jsonPath("$.receiverEmail").value("test2@example.com"))
+                    .andExpect(jsonPath("$.amount").value(150000.0))
+                    .andExpect(jsonPath("$.status").exists());
+
+            // The projection reads the emails in its own query; no Transaction or User entity is built
+            assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getLoadCount());
+            assertEquals(0, statistics.getEntityStatistics(User.class.getName()).getFetchCount());
+            assertEquals(0, statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        mockMvc.perform(get("/api/transactions/999999")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testAccountSummaryTracksTransfersAndRebuilds() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        for (double amount : new double[] {100.0, 250.0}) {
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), amount))))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(receiver.getId(), sender.getId(), 50.0))))
+                .andExpect(status().isOk());
+
+        // Twice: once as maintained on insert, once as recomputed from the transactions table
+        for (int pass = 0; pass < 2; pass++) {
+            mockMvc.perform(get("/api/transactions/summary/" + sender.getId())
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sentCount").value(2))
+                    .andExpect(jsonPath("$.sentTotal").value(350.0))
+                    .andExpect(jsonPath("$.receivedCount").value(1))
+                    .andExpect(jsonPath("$.receivedTotal").value(50.0))
+                    .andExpect(jsonPath("$.distinctCounterparties").value(1))
+                    .andExpect(jsonPath("$.firstTransactionAt").exists());
+            accountSummaryService.rebuild();
+        }
+    }
+
+    @Test
+    void testEmptySummaryTableIsBuiltOnStartup() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        for (double amount : new double[] {100.0, 250.0}) {
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), amount))))
+                    .andExpect(status().isOk());
+        }
+        // As after upgrading a database that has users and transactions but no summaries yet
+        counterpartyRepository.deleteAllInBatch();
+        summaryRepository.deleteAllInBatch();
+        entityManager.clear();
+
+        accountSummaryService.run(null);
+
+        mockMvc.perform(get("/api/transactions/summary/" + sender.getId())
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sentCount").value(2))
+                .andExpect(jsonPath("$.sentTotal").value(350.0))
+                .andExpect(jsonPath("$.distinctCounterparties").value(1));
+
+        // The next transfer adds to the built summary instead of starting a new one
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 50.0))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/transactions/summary/" + receiver.getId())
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.receivedCount").value(3))
+                .andExpect(jsonPath("$.receivedTotal").value(400.0))
+                .andExpect(jsonPath("$.distinctCounterparties").value(1));
+    }
+
+    @Test
+    void testArchivedTransactionsStayReadable() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+
+        List<Long> ids = new ArrayList<>();
+        for (double amount : new double[] {100.0, 200.0, 300.0}) {
+            MvcResult created = mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), amount))))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            ids.add(objectMapper.readValue(created.getResponse().getContentAsString(), TransactionResponse.class).getId());
+        }
+        // Age the first two past the cutoff; the oldest and newest are high risk
+        for (int i = 0; i < 3; i++) {
+            Transaction tx = transactionRepository.findById(ids.get(i)).orElseThrow();
+            if (i < 2) {
+                tx.setTimestamp(LocalDateTime.now().minusDays(200 - i));
+            }
+            tx.setFraudRiskScore(i == 1 ? 1 : 9);
+            transactionRepository.saveAndFlush(tx);
+        }
+
+        try {
+            assertEquals(2, transactionArchiver.archiveOlderThan(LocalDateTime.now().minusDays(90)));
+            assertTrue(transactionRepository.findSummaryById(ids.get(0)).isEmpty());
+
+            mockMvc.perform(get("/api/transactions/" + ids.get(0))
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.amount").value(100.0));
+
+            // One listing across both tiers, newest first; the second page comes from the archive
+            MvcResult firstPage = mockMvc.perform(get("/api/transactions/sender/" + sender.getId() + "?limit=2")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].id").value(ids.get(2)))
+                    .andExpect(jsonPath("$[1].id").value(ids.get(1)))
+                    .andReturn();
+            mockMvc.perform(get("/api/transactions/sender/" + sender.getId() + "?limit=2")
+                    .param("cursor", firstPage.getResponse().getHeader(TransactionController.NEXT_CURSOR_HEADER))
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].id").value(ids.get(0)));
+
+            assertEquals(List.of(ids.get(2), ids.get(0)), transactionService.getHighRiskTransactions().stream()
+                    .map(TransactionSummaryView::getId).toList());
+
+            // A rebuild counts archived rows too
+            accountSummaryService.rebuild();
+            mockMvc.perform(get("/api/transactions/summary/" + sender.getId())
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.sentCount").value(3))
+                    .andExpect(jsonPath("$.sentTotal").value(600.0));
+        } finally {
+            // The test transaction rolls the archive back; don't leave other tests routed to it
+            ReflectionTestUtils.setField(transactionTiers, "archivedUpTo", null);
+        }
+    }
+
+    @Test
+    void testRepeatTransfersReadUsersFromCache() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+        String body = objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 100.0));
+
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk());
+        double hits = meterRegistry.get("cache.gets").tag("cache", "users.by-id").tag("result", "hit")
+                .functionCounter().count();
+
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.senderEmail").value("test1@example.com"));
+        assertEquals(hits + 2, meterRegistry.get("cache.gets").tag("cache", "users.by-id").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testStatelessTokensSkipLookupAndCanBeRevoked() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+        try {
+            long lookups = meterRegistry.get("securebank.user.details").timer().count();
+            mockMvc.perform(get("/api/auth/profile")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+            assertEquals(lookups, meterRegistry.get("securebank.user.details").timer().count());
+
+            mockMvc.perform(post("/api/auth/revoke")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+            // The revocation joined the test's transaction: nothing is rejected until it commits
+            mockMvc.perform(get("/api/auth/profile")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            mockMvc.perform(get("/api/auth/profile")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isForbidden());
+
+            // A fresh login carries the new version
+            String freshToken = objectMapper.readValue(mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new AuthRequest("test1@example.com", "password123"))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(), AuthResponse.class).getToken();
+            mockMvc.perform(get("/api/auth/profile")
+                    .header("Authorization", "Bearer " + freshToken))
+                    .andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", false);
+            // The revocation is rolled back with the test, but the in-memory list would keep it
+            ((Map<?, ?>) ReflectionTestUtils.getField(tokenDenyList, "minVersions")).clear();
+        }
+    }
+
+    @Test
+    void testLoginOverConcurrencyLimitIsTurnedAway() throws Exception {
+        Object limit = ReflectionTestUtils.getField(admissionControlFilter, "auth");
+        ReflectionTestUtils.setField(admissionControlFilter, "auth", new Semaphore(0));
+        try {
+            mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new AuthRequest("test1@example.com", "password123"))))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+
+            // Transfers have their own limit and are still served
+            mockMvc.perform(get("/api/transactions/all")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(admissionControlFilter, "auth", limit);
+        }
+    }
+
+    @Test
+    void testRegistrationIsRefusedBeforeTheDatabaseWhileHashingIsSaturated() throws Exception {
+        ThreadPoolExecutor hashing = (ThreadPoolExecutor) ReflectionTestUtils.getField(passwordEncoder, "executor");
+        Object timeout = ReflectionTestUtils.getField(passwordEncoder, "timeout");
+        ReflectionTestUtils.setField(passwordEncoder, "timeout", Duration.ofMillis(100));
+        // Occupy every hashing thread, so the registration's hash waits in the queue until it times out
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < hashing.getCorePoolSize(); i++) {
+            hashing.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            User newcomer = new User();
+            newcomer.setUsername("testuser3");
+            newcomer.setEmail("test3@example.com");
+            newcomer.setPassword("password123");
+            mockMvc.perform(post("/api/auth/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(newcomer)))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+
+            // Refused while hashing, before the email check: no connection was taken for it
+            assertEquals(0, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+            release.countDown();
+            ReflectionTestUtils.setField(passwordEncoder, "timeout", timeout);
+        }
+        assertFalse(userRepository.existsByEmail("test3@example.com"));
+    }
+
+    @Test
+    void testIdempotencyKeyReplaysOriginalTransaction() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+        String body = objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 250.0));
+
+        MvcResult first = mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "retry-me")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        long id = objectMapper.readValue(first.getResponse().getContentAsString(), TransactionResponse.class).getId();
+
+        // The retry is answered from memory: same transaction, nothing new written
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "retry-me")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(id));
+        assertEquals(1, transactionRepository.count());
+
+        // After a restart the key is still known from its row
+        ((Cache<?, ?>) ReflectionTestUtils.getField(idempotencyService, "index")).invalidateAll();
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "retry-me")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.senderEmail").value("test1@example.com"));
+        assertEquals(1, transactionRepository.count());
+
+        // The same key for a different transfer is refused
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "retry-me")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 999.0))))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(1, transactionRepository.count());
+    }
+
+    @Test
+    void testFloodingSenderIsThrottled() throws Exception {
+        Object perMinute = ReflectionTestUtils.getField(senderThrottle, "lowRiskPerMinute");
+        Object burst = ReflectionTestUtils.getField(senderThrottle, "lowRiskBurst");
+        ReflectionTestUtils.setField(senderThrottle, "lowRiskPerMinute", 1);
+        ReflectionTestUtils.setField(senderThrottle, "lowRiskBurst", 2);
+        ReflectionTestUtils.invokeMethod(senderThrottle, "init");
+        try {
+            User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+            User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+            String body = objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 10.0));
+
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(post("/api/transactions/create")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                        .andExpect(status().isOk());
+            }
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists("Retry-After"));
+            assertEquals(2, transactionRepository.count());
+
+            // Other senders keep their own budget
+            String reverse = objectMapper.writeValueAsString(new TransactionRequest(receiver.getId(), sender.getId(), 10.0));
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(reverse))
+                    .andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(senderThrottle, "lowRiskPerMinute", perMinute);
+            ReflectionTestUtils.setField(senderThrottle, "lowRiskBurst", burst);
+            ReflectionTestUtils.invokeMethod(senderThrottle, "init");
+            ((Cache<?, ?>) ReflectionTestUtils.getField(senderThrottle, "buckets")).invalidateAll();
+        }
+    }
+
+    @Test
+    void testOnlyFundingAccountsMayDeposit() throws Exception {
+        User owner = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User other = userRepository.findByEmail("test2@example.com").orElseThrow();
+        String body = objectMapper.writeValueAsString(new DepositRequest(500.0));
+        double before = ledgerService.getBalance(other.getId());
+
+        // Neither someone else's account nor one's own
+        for (User target : List.of(other, owner)) {
+            mockMvc.perform(post("/api/accounts/" + target.getId() + "/deposit")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isForbidden());
+        }
+        assertEquals(before, ledgerService.getBalance(other.getId()));
+
+        Object funders = ReflectionTestUtils.getField(customUserDetailsService, "fundingAccounts");
+        ReflectionTestUtils.setField(customUserDetailsService, "fundingAccounts", Set.of("test1@example.com"));
+        try {
+            mockMvc.perform(post("/api/accounts/" + other.getId() + "/deposit")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance").value(before + 500.0));
+        } finally {
+            ReflectionTestUtils.setField(customUserDetailsService, "fundingAccounts", funders);
+        }
+    }
+
+    @Test
+    void testTransfersMoveBalancesAndHotAccountsSumTheirSlots() throws Exception {
+        User sender = userRepository.findByEmail("test1@example.com").orElseThrow();
+        User receiver = userRepository.findByEmail("test2@example.com").orElseThrow();
+        ReflectionTestUtils.setField(ledgerService, "enforceFunds", true);
+        ledgerService.deposit(sender.getId(), 1_000_000.0);
+        ledgerService.deposit(receiver.getId(), 1_000_000.0);
+        ledgerService.splitAccount(receiver.getId(), 4);
+        try {
+            String body = objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 250.0));
+            for (int i = 0; i < 4; i++) {
+                mockMvc.perform(post("/api/transactions/create")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                        .andExpect(status().isOk());
+            }
+            mockMvc.perform(get("/api/accounts/" + receiver.getId() + "/balance")
+                    .header("Authorization", "Bearer " + jwtToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance").value(1_001_000.0))
+                    .andExpect(jsonPath("$.slots").value(4));
+            assertEquals(999_000.0, ledgerService.getBalance(sender.getId()));
+            assertEquals(999_000.0, ledgerEntryRepository.sumByAccount(sender.getId()));
+
+            // More than the account holds is refused, and nothing is written
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(receiver.getId(), sender.getId(), 2_000_000.0))))
+                    .andExpect(status().isBadRequest());
+            assertEquals(4, transactionRepository.count());
+
+            // No single slot holds this much: it is taken across all of them
+            mockMvc.perform(post("/api/transactions/create")
+                    .header("Authorization", "Bearer " + jwtToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new TransactionRequest(receiver.getId(), sender.getId(), 1_000_900.0))))
+                    .andExpect(status().isOk());
+            assertEquals(100.0, ledgerService.getBalance(receiver.getId()));
+            assertEquals(100.0, ledgerEntryRepository.sumByAccount(receiver.getId()));
+        } finally {
+            ReflectionTestUtils.setField(ledgerService, "enforceFunds", false);
+            // The split rows are rolled back with the test
+            ((Map<?, ?>) ReflectionTestUtils.getField(ledgerService, "slotCounts")).remove(receiver.getId());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the export streams on another thread, in its own transaction
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TransactionExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User alice;
+    private User bob;
+    private String jwtToken;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        alice = saveUser("alice@example.com");
+        bob = saveUser("bob@example.com");
+        jwtToken = jwtUtil.generateToken(alice.getEmail());
+
+        LocalDateTime day = LocalDateTime.of(2024, 3, 1, 12, 0);
+        saveTransaction(alice, bob, 100.0, 2, day);
+        saveTransaction(alice, bob, 200.0, 9, day.plusDays(1));
+        saveTransaction(bob, alice, 300.0, 6, day.plusDays(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testNdjsonExportWritesOneObjectPerLine() throws Exception {
+        String[] lines = export("/api/transactions/export?senderId=" + alice.getId()).split("\n");
+
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("alice@example.com", first.get("senderEmail").asText());
+        assertEquals(100.0, first.get("amount").asDouble());
+        assertEquals("LOW_RISK", first.get("status").asText());
+        assertEquals("HIGH_RISK", objectMapper.readTree(lines[1]).get("status").asText());
+    }
+
+    @Test
+    void testCsvExportFiltersByTimeAndRisk() throws Exception {
+        String csv = export("/api/transactions/export?format=csv&from=2024-03-02T00:00:00&risk=medium_risk");
+
+        String[] lines = csv.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,sender_id,sender_email"));
+        assertTrue(lines[1].contains(",bob@example.com,"));
+        assertTrue(lines[1].endsWith(",6,SCORED,MEDIUM_RISK"));
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/transactions/export?format=xml")
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword("password123");
+        return userRepository.save(user);
+    }
+
+    private void saveTransaction(User sender, User receiver, double amount, int score, LocalDateTime timestamp) {
+        Transaction tx = new Transaction(sender, receiver, amount);
+        tx.setFraudRiskScore(score);
+        tx.setTimestamp(timestamp);
+        transactionRepository.save(tx);
+    }
+}
@@ -0,0 +1,258 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.dto.TransactionRequest;
+import com.securebank.model.JournalLease;
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.repository.JournalLeaseRepository;
+import com.securebank.repository.LedgerEntryRepository;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.UserRepository;
+import com.securebank.security.JwtUtil;
+import com.securebank.service.AccountSummaryService;
+import com.securebank.service.LedgerService;
+import com.securebank.service.TransactionJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the journal flusher writes on its own thread and must see committed users
+@SpringBootTest(properties = {
+    // Its own database: the journal lease it holds must not turn away other test contexts' transfers
+    "spring.datasource.url=jdbc:h2:mem:journaldb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "transactions.journal.enabled=true",
+    // The journal reserves funds, which only matters when balances are enforced
+    "ledger.enforce-funds=true",
+    // Flush only full batches of three, so the test controls when rows reach the database
+    "transactions.journal.flush-batch-size=3",
+    "transactions.journal.flush-interval=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TransactionJournalIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JournalLeaseRepository leaseRepository;
+
+    @Autowired
+    private AccountSummaryService accountSummaryService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private User sender;
+    private User receiver;
+    private String jwtToken;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("transactions.journal.directory", () -> {
+            try {
+                return Files.createTempDirectory("securebank-journal").toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+        sender = saveUser("journal1@example.com");
+        receiver = saveUser("journal2@example.com");
+        ledgerService.deposit(sender.getId(), 1000.0);
+        jwtToken = jwtUtil.generateToken(sender.getEmail());
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testJournaledTransfersAreAcknowledgedThenFlushedInABatch() throws Exception {
+        long first = create(600.0);
+
+        // The first transfer is only journaled, but its funds are already spoken for
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 600.0))))
+                .andExpect(status().isBadRequest());
+
+        create(300.0);
+        assertEquals(0, transactionRepository.count());
+
+        // The third fills the batch: all three are written in one database transaction
+        create(100.0);
+        for (int i = 0; i < 100 && transactionRepository.count() < 3; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(3, transactionRepository.count());
+        assertEquals(3, accountSummaryService.getSummary(sender.getId()).getSentCount());
+        assertEquals(0.0, ledgerService.getBalance(sender.getId()));
+        assertEquals(1000.0, ledgerService.getBalance(receiver.getId()));
+        assertEquals(2, ledgerEntryRepository.countByTransactionId(first));
+
+        mockMvc.perform(get("/api/transactions/" + first)
+                .header("Authorization", "Bearer " + jwtToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(600.0));
+    }
+
+    @Test
+    void testDirectTransfersAreCheckedAgainstJournaledReservations() throws Exception {
+        create(500.0);
+
+        // Keyed requests and batches are saved directly, but the unflushed 500 is still spoken for
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "journal-keyed-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 600.0))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/transactions/batch")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new TransactionRequest(sender.getId(), receiver.getId(), 600.0)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].result").value("REJECTED"));
+
+        mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .header("Idempotency-Key", "journal-keyed-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), 300.0))))
+                .andExpect(status().isOk());
+        assertEquals(1, transactionRepository.count());
+
+        // The two journaled transfers fill the batch; nothing was overdrawn
+        create(100.0);
+        create(100.0);
+        for (int i = 0; i < 100 && transactionRepository.count() < 4; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(4, transactionRepository.count());
+        assertEquals(0.0, ledgerService.getBalance(sender.getId()));
+        assertEquals(1000.0, ledgerService.getBalance(receiver.getId()));
+    }
+
+    @Test
+    void testRecordTheDatabaseRefusesIsSetAsideAndTheRestFlushed() throws Exception {
+        // Its receiver does not exist, so the foreign key refuses it however often it is tried
+        User missing = new User();
+        missing.setId(Long.MAX_VALUE);
+        Transaction refused = transactionJournal.append(new Transaction(sender, missing, 100.0));
+
+        long first = create(200.0);
+        long second = create(300.0);
+        for (int i = 0; i < 100 && transactionRepository.count() < 2; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, transactionRepository.count());
+        assertTrue(transactionRepository.existsById(first));
+        assertTrue(transactionRepository.existsById(second));
+        assertEquals(500.0, ledgerService.getBalance(receiver.getId()));
+
+        Path deadLetters = ((Path) ReflectionTestUtils.getField(transactionJournal, "directory")).resolve("dead-letter.ndjson");
+        List<String> lines = Files.readAllLines(deadLetters);
+        assertEquals(1, lines.size());
+        assertEquals(refused.getId().longValue(), objectMapper.readTree(lines.get(0)).get("transactionId").asLong());
+
+        // The refused record's reservation went with it
+        create(500.0);
+        // Fill the batch, so nothing is left for the next test
+        ledgerService.deposit(sender.getId(), 2.0);
+        create(1.0);
+        create(1.0);
+        for (int i = 0; i < 100 && transactionRepository.count() < 5; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(5, transactionRepository.count());
+    }
+
+    @Test
+    void testJournalLeaseIsNotTakenByAnotherInstance() {
+        List<JournalLease> leases = leaseRepository.findAll();
+        assertEquals(1, leases.size());
+        JournalLease lease = leases.get(0);
+        assertTrue(lease.getExpiresAt().isAfter(LocalDateTime.now()));
+
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = transactionTemplate.execute(status ->
+                leaseRepository.claim(lease.getName(), "other-host:/journal", now, now.plusMinutes(1)));
+        assertEquals(0, claimed);
+        assertEquals(lease.getOwner(), leaseRepository.findById(lease.getName()).orElseThrow().getOwner());
+    }
+
+    private long create(double amount) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/transactions/create")
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new TransactionRequest(sender.getId(), receiver.getId(), amount))))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("password123"));
+        return userRepository.save(user);
+    }
+}
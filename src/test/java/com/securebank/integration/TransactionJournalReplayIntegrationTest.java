@@ -0,0 +1,131 @@
+package com.securebank.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securebank.SecurebankApplication;
+import com.securebank.journal.JournalRecord;
+import com.securebank.journal.SegmentedJournal;
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import com.securebank.model.UserAccountSummary;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.service.AccountSummaryService;
+import com.securebank.service.LedgerService;
+import com.securebank.service.TransactionService;
+import com.securebank.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Restarts the application over journal segments left by a crash. Each run is a full
+ * application context on its own database, which outlives the contexts, so what one run
+ * stored is there for the next.
+ */
+public class TransactionJournalReplayIntegrationTest {
+
+    // Two records per segment, so the leftovers span several files
+    private static final long SEGMENT_BYTES = 2L * JournalRecord.SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLeftoverSegmentsAreReplayedOnStartup() throws Exception {
+        Long senderId;
+        Long receiverId;
+        Transaction stored;
+        try (ConfigurableApplicationContext context = start(false)) {
+            senderId = register(context, "replay1@example.com");
+            receiverId = register(context, "replay2@example.com");
+            context.getBean(LedgerService.class).deposit(senderId, 1000.0);
+            stored = context.getBean(TransactionService.class).createTransaction(senderId, receiverId, 100.0);
+        }
+
+        // As a crash leaves them: one transfer already stored, one the database will refuse, two new
+        long nextId = stored.getId() + 1000;
+        JournalRecord first = new JournalRecord(nextId, senderId, receiverId, 50.0, stored.getTimestamp(), 1);
+        JournalRecord again = new JournalRecord(stored.getId(), senderId, receiverId, 100.0, stored.getTimestamp(), 1);
+        JournalRecord refused = new JournalRecord(nextId + 1, senderId, Long.MAX_VALUE, 10.0, stored.getTimestamp(), 1);
+        JournalRecord last = new JournalRecord(nextId + 2, senderId, receiverId, 25.0, stored.getTimestamp(), 1);
+        SegmentedJournal crashed = new SegmentedJournal(directory, SEGMENT_BYTES, (records, nanos) -> { });
+        long sequence = 0;
+        for (JournalRecord record : List.of(first, again, refused, last)) {
+            sequence = crashed.append(record);
+        }
+        assertTrue(crashed.awaitDurable(sequence, Duration.ofSeconds(10)));
+        crashed.close();
+        assertTrue(segmentCount() > 1);
+
+        try (ConfigurableApplicationContext context = start(true)) {
+            assertReplayed(context, senderId, receiverId, stored.getId(), nextId);
+
+            List<String> deadLetters = Files.readAllLines(directory.resolve("dead-letter.ndjson"));
+            assertEquals(1, deadLetters.size());
+            assertEquals(refused.transactionId(),
+                    context.getBean(ObjectMapper.class).readTree(deadLetters.get(0)).get("transactionId").asLong());
+        }
+
+        // Replayed once: the next start finds nothing left
+        try (ConfigurableApplicationContext context = start(true)) {
+            assertReplayed(context, senderId, receiverId, stored.getId(), nextId);
+        }
+    }
+
+    private void assertReplayed(ConfigurableApplicationContext context, Long senderId, Long receiverId,
+                                Long storedId, long nextId) {
+        TransactionRepository transactionRepository = context.getBean(TransactionRepository.class);
+        assertEquals(3, transactionRepository.count());
+        assertTrue(transactionRepository.existsById(storedId));
+        assertTrue(transactionRepository.existsById(nextId));
+        assertTrue(transactionRepository.existsById(nextId + 2));
+
+        LedgerService ledgerService = context.getBean(LedgerService.class);
+        assertEquals(825.0, ledgerService.getBalance(senderId));
+        assertEquals(175.0, ledgerService.getBalance(receiverId));
+
+        AccountSummaryService summaryService = context.getBean(AccountSummaryService.class);
+        UserAccountSummary sender = summaryService.getSummary(senderId);
+        assertEquals(3, sender.getSentCount());
+        assertEquals(175.0, sender.getSentTotal());
+        UserAccountSummary receiver = summaryService.getSummary(receiverId);
+        assertEquals(3, receiver.getReceivedCount());
+        assertEquals(175.0, receiver.getReceivedTotal());
+        assertEquals(1, receiver.getDistinctCounterparties());
+    }
+
+    private ConfigurableApplicationContext start(boolean journal) {
+        return new SpringApplicationBuilder(SecurebankApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        // Kept between runs, apart from every other test's database
+                        "--spring.datasource.url=jdbc:h2:mem:replaydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--ledger.enforce-funds=true",
+                        "--transactions.journal.enabled=" + journal,
+                        "--transactions.journal.directory=" + directory,
+                        "--transactions.journal.segment-size=" + SEGMENT_BYTES + "B");
+    }
+
+    private static Long register(ConfigurableApplicationContext context, String email) {
+        User user = new User();
+        user.setUsername(email);
+        user.setEmail(email);
+        user.setPassword("password123");
+        return context.getBean(UserService.class).registerUser(user).getId();
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> !file.getFileName().toString().startsWith("dead-letter")).count();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.securebank.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedJournalTest {
+
+    // Two records per segment, so a handful of appends spans several files
+    private static final long SEGMENT_BYTES = 2L * JournalRecord.SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testConcurrentAppendsAreSyncedInGroupsAndReadBackInOrder() throws Exception {
+        AtomicLong syncs = new AtomicLong();
+        AtomicLong synced = new AtomicLong();
+        List<JournalRecord> records;
+        try (SegmentedJournal journal = new SegmentedJournal(directory, SEGMENT_BYTES, (count, nanos) -> {
+            syncs.incrementAndGet();
+            synced.addAndGet(count);
+        })) {
+            ExecutorService writers = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                long id = i;
+                futures.add(writers.submit(() -> {
+                    long sequence = journal.append(record(id));
+                    assertTrue(journal.awaitDurable(sequence, Duration.ofSeconds(10)));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            writers.shutdown();
+
+            records = journal.read(0, 1000);
+            assertEquals(200, records.size());
+            assertEquals(200, synced.get());
+            assertTrue(syncs.get() <= 200);
+
+            // Everything read back intact; IDs in append order are a permutation of 0..199
+            assertEquals(200, records.stream().mapToLong(JournalRecord::transactionId).distinct().count());
+            assertEquals(record(7).timestamp(), records.stream()
+                    .filter(r -> r.transactionId() == 7).findFirst().orElseThrow().timestamp());
+
+            journal.release(200);
+            // Only the segment being appended to is kept
+            assertEquals(1, segmentFiles().size());
+        }
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void testUnreleasedRecordsAreRecoveredUpToATornOne() throws Exception {
+        try (SegmentedJournal journal = new SegmentedJournal(directory, SEGMENT_BYTES, (count, nanos) -> { })) {
+            long last = 0;
+            for (long id = 1; id <= 5; id++) {
+                last = journal.append(record(id));
+            }
+            assertTrue(journal.awaitDurable(last, Duration.ofSeconds(10)));
+            journal.release(2);
+        }
+        // Segments: [1, 2] released and deleted, [3, 4], [5]
+        List<Path> files = segmentFiles();
+        assertEquals(2, files.size());
+
+        // A crash tore record 4
+        try (FileChannel channel = FileChannel.open(files.get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), JournalRecord.SIZE + 10);
+        }
+
+        try (SegmentedJournal journal = new SegmentedJournal(directory, SEGMENT_BYTES, (count, nanos) -> { })) {
+            List<Long> ids = journal.recovered().stream().map(JournalRecord::transactionId).toList();
+            assertEquals(List.of(3L, 5L), ids);
+            assertEquals(record(3), journal.recovered().get(0));
+
+            journal.discardRecovered();
+            assertEquals(1, segmentFiles().size());
+            // New records start a fresh sequence after the recovered segments
+            assertEquals(0, journal.append(record(6)));
+        }
+    }
+
+    private static JournalRecord record(long id) {
+        return new JournalRecord(id, 100 + id, 200 + id, id * 10.5,
+                LocalDateTime.of(2024, 1, 1, 12, 0).plusNanos(id * 1_000_001), (int) (id % 10));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.securebank.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor();
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void testSleepInsideSynchronizedIsReportedAsPinned() throws Exception {
+        ReflectionTestUtils.setField(monitor, "meterRegistry", registry);
+        ReflectionTestUtils.setField(monitor, "enabled", true);
+        ReflectionTestUtils.setField(monitor, "threshold", Duration.ofMillis(10));
+        monitor.start();
+
+        Object lock = new Object();
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // JFR hands events to the stream about once a second
+        Timer pinned = null;
+        for (int i = 0; i < 100 && pinned == null; i++) {
+            pinned = registry.find("securebank.virtual-threads.pinned").tag("path", "synchronized").timer();
+            if (pinned == null) {
+                Thread.sleep(100);
+            }
+        }
+        assertNotNull(pinned, "pinned virtual thread was not reported");
+        assertEquals(1, pinned.count());
+        assertTrue(pinned.getId().getTag("site").startsWith("metrics.VirtualThreadPinningMonitorTest."));
+    }
+}
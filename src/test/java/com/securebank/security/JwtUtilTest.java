@@ -0,0 +1,35 @@
+package com.securebank.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+
+    @Test
+    void testVerifiedClaimsAreCachedPerToken() {
+        String token = jwtUtil.generateToken("cache@example.com");
+
+        VerifiedClaims first = jwtUtil.verify(token);
+        assertEquals("cache@example.com", first.subject());
+        assertFalse(first.isExpired());
+        // The second verification is a cache hit and returns the same claims
+        assertSame(first, jwtUtil.verify(token));
+        assertEquals(1, jwtUtil.claimsCache().estimatedSize());
+    }
+
+    @Test
+    void testTamperedTokenIsRejectedAfterOriginalWasCached() {
+        String token = jwtUtil.generateToken("cache@example.com");
+        jwtUtil.verify(token);
+
+        // Same header and payload, different signature: a different digest, so a full verification
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1) + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertFalse(jwtUtil.validateToken("not-a-token"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.securebank.security;
+
+import com.securebank.repository.TokenVersionView;
+import com.securebank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+public class TokenDenyListTest {
+
+    // Rows the next refresh query returns, and what happens on this instance while it runs
+    private final List<TokenVersionView> rows = new ArrayList<>();
+    private Runnable duringQuery = () -> { };
+
+    private TokenDenyList denyList;
+
+    @BeforeEach
+    void setUp() {
+        denyList = new TokenDenyList();
+        setField(denyList, "userRepository", Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findTokenVersions")) {
+                        duringQuery.run();
+                        return List.copyOf(rows);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    @Test
+    void testRevocationsFromOtherInstancesAreLoaded() {
+        rows.add(row(1L, 3));
+        denyList.refresh();
+        assertTrue(denyList.isRevoked(1L, 2));
+        assertFalse(denyList.isRevoked(1L, 3));
+        assertFalse(denyList.isRevoked(2L, 0));
+    }
+
+    @Test
+    void testRevocationDuringRefreshIsKept() {
+        // The query read the row before this instance's revocation committed
+        rows.add(row(1L, 1));
+        duringQuery = () -> denyList.revokeBelow(1L, 2);
+        denyList.refresh();
+        assertTrue(denyList.isRevoked(1L, 1));
+
+        // Nor does a later refresh that still reads the older row lower it
+        duringQuery = () -> { };
+        denyList.refresh();
+        assertTrue(denyList.isRevoked(1L, 1));
+        assertFalse(denyList.isRevoked(1L, 2));
+    }
+
+    private static TokenVersionView row(Long userId, int tokenVersion) {
+        return new TokenVersionView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public int getTokenVersion() {
+                return tokenVersion;
+            }
+        };
+    }
+}
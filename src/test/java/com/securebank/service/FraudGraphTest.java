@@ -0,0 +1,258 @@
+package com.securebank.service;
+
+import com.securebank.model.Transaction;
+import com.securebank.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudGraphTest {
+
+    private FraudGraph fraudGraph;
+
+    @BeforeEach
+    void setUp() {
+        fraudGraph = new FraudGraph();
+        fraudGraph.setMaxCycleHops(4);
+    }
+
+    @Test
+    void testEdgeClosingCycleIsDetected() {
+        addEdge(1L, 2L);
+        addEdge(2L, 3L);
+        assertFalse(fraudGraph.closesCycle(2L, 3L));
+
+        addEdge(3L, 1L);
+        assertTrue(fraudGraph.closesCycle(3L, 1L));
+        assertTrue(fraudGraph.hasSuspiciousCycle(1L));
+    }
+
+    @Test
+    void testCycleLongerThanHopLimitIsIgnored() {
+        // 1 -> 2 -> 3 -> 4 -> 5 -> 1 is five edges, one more than the limit
+        addEdge(1L, 2L);
+        addEdge(2L, 3L);
+        addEdge(3L, 4L);
+        addEdge(4L, 5L);
+        addEdge(5L, 1L);
+        assertFalse(fraudGraph.closesCycle(5L, 1L));
+
+        fraudGraph.setMaxCycleHops(5);
+        assertTrue(fraudGraph.closesCycle(5L, 1L));
+    }
+
+    @Test
+    void testLongChainDoesNotOverflowStack() {
+        fraudGraph.setMaxCycleHops(200_000);
+        fraudGraph.setMaxCycleEdges(200_000);
+        for (long i = 1; i < 100_000; i++) {
+            addEdge(i, i + 1);
+        }
+        addEdge(100_000L, 1L);
+        assertTrue(fraudGraph.closesCycle(100_000L, 1L));
+    }
+
+    @Test
+    void testSearchGivesUpAfterEdgeBudget() {
+        // 2 pays 1,000 accounts, and only the last one pays 1 back
+        for (long i = 100; i < 1_100; i++) {
+            addEdge(2L, i);
+        }
+        addEdge(1_099L, 1L);
+        addEdge(1L, 2L);
+
+        fraudGraph.setMaxCycleEdges(500);
+        assertFalse(fraudGraph.closesCycle(1L, 2L));
+        assertFalse(fraudGraph.hasSuspiciousCycle(1L));
+        assertEquals(2, fraudGraph.getTruncatedSearches());
+
+        fraudGraph.setMaxCycleEdges(2_000);
+        assertTrue(fraudGraph.closesCycle(1L, 2L));
+        assertTrue(fraudGraph.hasSuspiciousCycle(1L));
+        assertEquals(2, fraudGraph.getTruncatedSearches());
+    }
+
+    @Test
+    void testEarlierBatchItemsCloseCyclesBeforeTheyAreStored() {
+        addEdge(1L, 2L);
+        // 2 -> 3 and 3 -> 1 are earlier items of the same batch, not in the graph yet
+        List<Transaction> earlier = List.of(transaction(2L, 3L), transaction(3L, 4L), transaction(4L, 1L));
+        assertFalse(fraudGraph.closesCycle(1L, 2L));
+        assertTrue(fraudGraph.closesCycle(1L, 2L, earlier));
+        assertFalse(fraudGraph.closesCycle(1L, 2L, earlier.subList(0, 2)));
+        assertFalse(fraudGraph.hasSuspiciousCycle(1L));
+    }
+
+    @Test
+    void testOutDegreeCountsNewReceiversOnce() {
+        addEdge(1L, 2L);
+        addEdge(1L, 3L);
+        assertEquals(2, fraudGraph.getOutDegree(1L, List.of(2L)));
+        assertEquals(3, fraudGraph.getOutDegree(1L, List.of(4L, 4L, 3L)));
+        assertEquals(1, fraudGraph.getOutDegree(9L, List.of(4L)));
+    }
+
+    @Test
+    void testOutDegreeCountsDistinctReceivers() {
+        addEdge(1L, 2L);
+        addEdge(1L, 2L);
+        addEdge(1L, 3L);
+        assertEquals(2, fraudGraph.getOutDegree(1L));
+        assertEquals(0, fraudGraph.getOutDegree(9L));
+    }
+
+    @Test
+    void testConcurrentWritersKeepEveryEdge() throws Exception {
+        int threads = 8;
+        int receiversPerSender = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                // Every thread writes the same edges, so each must be stored exactly once
+                for (long sender = 1; sender <= 50; sender++) {
+                    for (long receiver = 1000; receiver < 1000 + receiversPerSender; receiver++) {
+                        addEdge(sender, receiver);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        for (long sender = 1; sender <= 50; sender++) {
+            assertEquals(receiversPerSender, fraudGraph.getOutDegree(sender));
+        }
+    }
+
+    @Test
+    void testEdgesOlderThanRetentionAreNotAdded() {
+        addEdge(1L, 2L, LocalDateTime.now().minusDays(45));
+        assertEquals(0, fraudGraph.getOutDegree(1L));
+    }
+
+    @Test
+    void testExpiredEdgesAreIgnoredAndEvicted() {
+        fraudGraph.setEdgeRetention(Duration.ofDays(60));
+        LocalDateTime old = LocalDateTime.now().minusDays(45);
+        addEdge(1L, 2L, old);
+        addEdge(2L, 1L, old);
+        addEdge(1L, 3L);
+        assertEquals(2, fraudGraph.getOutDegree(1L));
+        assertTrue(fraudGraph.hasSuspiciousCycle(2L));
+
+        // Shrinking the window hides the old edges from scoring straight away
+        fraudGraph.setEdgeRetention(Duration.ofDays(30));
+        assertEquals(1, fraudGraph.getOutDegree(1L));
+        assertEquals(0, fraudGraph.getOutDegree(2L));
+        assertFalse(fraudGraph.hasSuspiciousCycle(2L));
+
+        // and the sweeper removes them for good
+        fraudGraph.evictExpiredEdges();
+        fraudGraph.setEdgeRetention(Duration.ofDays(60));
+        assertEquals(1, fraudGraph.getOutDegree(1L));
+        assertEquals(0, fraudGraph.getOutDegree(2L));
+    }
+
+    @Test
+    void testReusedEdgeIsRefreshed() {
+        addEdge(1L, 2L, LocalDateTime.now().minusDays(29));
+        addEdge(1L, 2L);
+        fraudGraph.setEdgeRetention(Duration.ofDays(1));
+        assertEquals(1, fraudGraph.getOutDegree(1L));
+    }
+
+    @Test
+    void testSnapshotRoundTrip(@TempDir Path dir) throws Exception {
+        addEdge(10L, 20L);
+        addEdge(20L, 30L);
+        addEdge(30L, 10L);
+        addEdge(10L, 40L);
+        Path snapshot = dir.resolve("graph.snapshot");
+        fraudGraph.writeSnapshot(snapshot, 1234L);
+
+        FraudGraph restored = new FraudGraph();
+        restored.setMaxCycleHops(4);
+        assertEquals(1234L, restored.loadSnapshot(snapshot));
+        assertEquals(2, restored.getOutDegree(10L));
+        assertEquals(1, restored.getOutDegree(30L));
+        assertEquals(0, restored.getOutDegree(40L));
+        assertTrue(restored.hasSuspiciousCycle(20L));
+    }
+
+    @Test
+    void testSnapshotWrittenDuringTrafficToNewNodesLoads(@TempDir Path dir) throws Exception {
+        addEdge(1L, 2L);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        // A chain: each edge runs from the newest node to a new one, often created after a
+        // snapshot has counted the nodes but before it has read the newest node's edges
+        Future<?> traffic = pool.submit(() -> {
+            for (long receiver = 3; receiver < 20_000; receiver++) {
+                addEdge(receiver - 1, receiver);
+            }
+        });
+        try {
+            int snapshots = 0;
+            do {
+                Path snapshot = dir.resolve("graph.snapshot");
+                fraudGraph.writeSnapshot(snapshot, snapshots);
+
+                FraudGraph restored = new FraudGraph();
+                assertEquals(snapshots, restored.loadSnapshot(snapshot));
+                assertTrue(restored.getOutDegree(1L) >= 1);
+                snapshots++;
+            } while (!traffic.isDone());
+            traffic.get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSnapshotWithTargetOutsideItsNodesIsRefused(@TempDir Path dir) throws Exception {
+        addEdge(10L, 20L);
+        Path snapshot = dir.resolve("graph.snapshot");
+        fraudGraph.writeSnapshot(snapshot, 1L);
+
+        // Header (28 bytes), two user IDs, the first node's degree: then its first target
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 99), 28 + 16 + 4);
+        }
+        assertThrows(IOException.class, () -> new FraudGraph().loadSnapshot(snapshot));
+    }
+
+    private void addEdge(Long senderId, Long receiverId) {
+        addEdge(senderId, receiverId, LocalDateTime.now());
+    }
+
+    private void addEdge(Long senderId, Long receiverId, LocalDateTime timestamp) {
+        Transaction tx = transaction(senderId, receiverId);
+        tx.setTimestamp(timestamp);
+        fraudGraph.addTransactionEdge(tx);
+    }
+
+    private static Transaction transaction(Long senderId, Long receiverId) {
+        User sender = new User();
+        sender.setId(senderId);
+        User receiver = new User();
+        receiver.setId(receiverId);
+        return new Transaction(sender, receiver, 100.0);
+    }
+}
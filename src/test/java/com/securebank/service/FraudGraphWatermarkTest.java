@@ -0,0 +1,65 @@
+package com.securebank.service;
+
+import com.securebank.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudGraphWatermarkTest {
+
+    private final FraudGraphWatermark watermark = new FraudGraphWatermark();
+
+    @Test
+    void testLaterIdCommittedFirstHoldsWatermarkBelowEarlierStore() {
+        watermark.issuedUpTo(100);
+        // Given ID 101 from the pooled block, but slow to commit
+        FraudGraphWatermark.Store slow = watermark.beginStore();
+        // Given 102 from the same block, committed and added to the graph first
+        try (FraudGraphWatermark.Store fast = watermark.beginStore()) {
+            fast.stored(List.of(transaction(102L)));
+        }
+        watermark.applied(List.of(transaction(102L)));
+
+        // The database already shows 102, but 101 has no edge yet
+        assertEquals(100, watermark.limit(102));
+
+        // Committed, but its edge is added after the commit
+        slow.stored(List.of(transaction(101L)));
+        slow.close();
+        assertEquals(100, watermark.limit(102));
+
+        watermark.applied(List.of(transaction(101L)));
+        assertEquals(102, watermark.limit(102));
+    }
+
+    @Test
+    void testStoreStartedAfterIdsWereSeenStaysAboveThem() {
+        watermark.applied(List.of(transaction(150L)));
+        try (FraudGraphWatermark.Store store = watermark.beginStore()) {
+            // Whatever it is given comes after 150
+            assertEquals(150, watermark.limit(150));
+            assertEquals(150, watermark.limit(200));
+            store.stored(List.of(transaction(151L), transaction(152L)));
+        }
+        assertEquals(150, watermark.limit(152));
+        watermark.applied(List.of(transaction(151L), transaction(152L)));
+        assertEquals(152, watermark.limit(152));
+    }
+
+    @Test
+    void testFailedStoreReleasesWatermark() {
+        watermark.issuedUpTo(10);
+        try (FraudGraphWatermark.Store store = watermark.beginStore()) {
+            assertEquals(10, watermark.limit(20));
+        }
+        assertEquals(20, watermark.limit(20));
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        return tx;
+    }
+}
@@ -0,0 +1,118 @@
+package com.securebank.service;
+
+import com.securebank.repository.TransactionActivityView;
+import com.securebank.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+public class SenderActivityTrackerTest {
+
+    // Stored activity per sender, as the warm-up query would return it (newest first)
+    private final Map<Long, List<TransactionActivityView>> stored = new HashMap<>();
+    private final List<Long> warmUps = new ArrayList<>();
+    private long nextId = 1;
+
+    private SenderActivityTracker tracker;
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SenderActivityTracker();
+        setField(tracker, "transactionRepository", repository());
+        setField(tracker, "maxSenders", 2);
+        invokeMethod(tracker, "init");
+    }
+
+    @Test
+    void testStoredTransferIsCountedOnce() {
+        store(1L, now.minusSeconds(30), 100);
+        assertEquals(1, tracker.countSince(1L, null, now.minusMinutes(1)));
+
+        // Recorded after its commit: the warmed ring gets it once
+        store(1L, now, 50);
+        tracker.record(1L, now, 50);
+        assertEquals(2, tracker.countSince(1L, null, now.minusMinutes(1)));
+        assertEquals(150, tracker.amountSince(1L, null, now.minusMinutes(1)));
+    }
+
+    @Test
+    void testRecordForSenderNotInMemoryIsLeftToTheWarmUp() {
+        store(1L, now, 50);
+        tracker.record(1L, now, 50);
+        assertTrue(warmUps.isEmpty());
+
+        assertEquals(1, tracker.countSince(1L, null, now.minusMinutes(1)));
+        assertEquals(now, tracker.getLastTransactionTime(1L, null));
+    }
+
+    @Test
+    void testSendersAreStillCachedAtTheCap() {
+        for (long sender = 1; sender <= 5; sender++) {
+            tracker.getLastTransactionTime(sender, null);
+            tracker.countSince(sender, null, now.minusMinutes(10));
+        }
+        // One query per sender: past the cap, a new sender evicts another rather than missing every time
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), warmUps);
+    }
+
+    @Test
+    void testTransferScoredAfterItsSaveIsNotItsOwnHistory() {
+        store(1L, now.minusMinutes(3), 100);
+        Long pendingId = store(1L, now, 50);
+
+        // Async scoring of the stored transfer warms the ring without it...
+        assertEquals(now.minusMinutes(3), tracker.getLastTransactionTime(1L, pendingId));
+        assertEquals(1, tracker.countSince(1L, pendingId, now.minusMinutes(10)));
+
+        // ...and records it once scored
+        tracker.record(1L, now, 50);
+        assertEquals(2, tracker.countSince(1L, null, now.minusMinutes(10)));
+    }
+
+    private Long store(Long senderId, LocalDateTime timestamp, double amount) {
+        Long id = nextId++;
+        stored.computeIfAbsent(senderId, key -> new ArrayList<>()).add(0, new TransactionActivityView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getTimestamp() {
+                return timestamp;
+            }
+
+            @Override
+            public double getAmount() {
+                return amount;
+            }
+        });
+        return id;
+    }
+
+    // Only findRecentActivityBySender is ever called by the tracker
+    private TransactionRepository repository() {
+        return (TransactionRepository) Proxy.newProxyInstance(
+                TransactionRepository.class.getClassLoader(),
+                new Class<?>[] {TransactionRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findRecentActivityBySender")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Long senderId = (Long) args[0];
+                    warmUps.add(senderId);
+                    return List.copyOf(stored.getOrDefault(senderId, List.of()));
+                });
+    }
+}
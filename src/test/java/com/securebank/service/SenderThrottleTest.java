@@ -0,0 +1,81 @@
+package com.securebank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+public class SenderThrottleTest {
+
+    private static final int MAX_SENDERS = 100;
+
+    private SenderThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new SenderThrottle();
+        setField(throttle, "meterRegistry", new SimpleMeterRegistry());
+        setField(throttle, "enabled", true);
+        // Slow enough that no token comes back while a test runs
+        setField(throttle, "lowRiskPerMinute", 1);
+        setField(throttle, "lowRiskBurst", 3);
+        setField(throttle, "mediumRiskPerMinute", 1);
+        setField(throttle, "mediumRiskBurst", 2);
+        setField(throttle, "highRiskPerMinute", 1);
+        setField(throttle, "highRiskBurst", 1);
+        setField(throttle, "idleTimeout", Duration.ofMinutes(10));
+        setField(throttle, "maxSenders", MAX_SENDERS);
+        invokeMethod(throttle, "init");
+    }
+
+    @Test
+    void testNewSenderIsThrottledAtTheCap() {
+        fillToTheCap();
+
+        Long newcomer = MAX_SENDERS + 1L;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire(newcomer));
+        }
+        // Its bucket was kept, so the burst is used up like any other sender's
+        assertFalse(throttle.tryAcquire(newcomer));
+        assertThrows(SenderThrottledException.class, () -> throttle.acquire(newcomer));
+    }
+
+    @Test
+    void testHighRiskBandOutlivesTheBucket() {
+        throttle.recordScore(1L, 9);
+        assertTrue(throttle.tryAcquire(1L));
+        assertFalse(throttle.tryAcquire(1L));
+
+        // A flood of new senders pushes the bucket out, but not the band
+        for (long sender = 2; sender <= 10 * MAX_SENDERS; sender++) {
+            throttle.tryAcquire(sender);
+        }
+        throttle.evictIdleSenders();
+
+        assertTrue(throttle.tryAcquire(1L));
+        assertFalse(throttle.tryAcquire(1L));
+    }
+
+    @Test
+    void testLowScoreReturnsTheSenderToTheLowRiskLimit() {
+        throttle.recordScore(1L, 9);
+        throttle.recordScore(1L, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire(1L));
+        }
+        assertFalse(throttle.tryAcquire(1L));
+    }
+
+    private void fillToTheCap() {
+        for (long sender = 1; sender <= MAX_SENDERS; sender++) {
+            assertTrue(throttle.tryAcquire(sender));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.securebank.service;
+
+import com.securebank.repository.ArchivedTransactionRepository;
+import com.securebank.repository.TransactionRepository;
+import com.securebank.repository.TransactionSummaryView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+public class TransactionTiersTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final List<TransactionSummaryView> hotRows = new ArrayList<>();
+    private final List<TransactionSummaryView> archivedRows = new ArrayList<>();
+
+    private TransactionTiers tiers;
+
+    @BeforeEach
+    void setUp() {
+        tiers = new TransactionTiers();
+        setField(tiers, "transactionRepository", tier(TransactionRepository.class, hotRows));
+        setField(tiers, "archivedTransactionRepository", tier(ArchivedTransactionRepository.class, archivedRows));
+        setField(tiers, "archiving", true);
+        setField(tiers, "maxAge", Duration.ofDays(90));
+        setField(tiers, "archivedUpTo", now.minusDays(90));
+    }
+
+    @Test
+    void testTiersAreMergedNewestFirst() {
+        hotRows.add(row(3, now));
+        archivedRows.add(row(2, now.minusDays(100)));
+        archivedRows.add(row(1, now.minusDays(101)));
+
+        assertEquals(List.of(3L, 2L), ids(tiers.newestFirst(2, tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7))));
+        assertEquals(List.of(3L, 2L, 1L), ids(tiers.newestFirst(Integer.MAX_VALUE,
+                tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7))));
+    }
+
+    @Test
+    void testRowArchivedBetweenTheReadsIsReturnedOnce() {
+        // Read from the hot table, then moved to the archive before the archive was read
+        TransactionSummaryView moved = row(2, now.minusDays(100));
+        hotRows.add(row(3, now));
+        hotRows.add(moved);
+        archivedRows.add(moved);
+        archivedRows.add(row(1, now.minusDays(101)));
+
+        assertEquals(List.of(3L, 2L, 1L), ids(tiers.newestFirst(Integer.MAX_VALUE,
+                tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7))));
+    }
+
+    @Test
+    void testRowsArchivedByAnotherInstanceAreRead() {
+        // This instance has never seen the archive hold anything
+        setField(tiers, "archivedUpTo", null);
+        hotRows.add(row(3, now));
+        archivedRows.add(row(2, now.minusDays(100)));
+
+        assertEquals(List.of(3L, 2L), ids(tiers.newestFirst(2, tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7))));
+        assertEquals(2L, tiers.findSummaryById(2L).orElseThrow().getId());
+        assertTrue(tiers.findSummaryById(4L).isEmpty());
+    }
+
+    @Test
+    void testRecentPageSkipsArchive() {
+        hotRows.add(row(3, now));
+        hotRows.add(row(2, now.minusDays(1)));
+        archivedRows.add(row(1, now.minusDays(100)));
+
+        assertEquals(List.of(3L, 2L), ids(tiers.newestFirst(2, tier -> tier.findSummariesByFraudRiskScoreGreaterThan(7))));
+    }
+
+    @Test
+    void testBoundaryIsNeverLowered() {
+        LocalDateTime archived = now.minusDays(10);
+        setField(tiers, "archivedUpTo", archived);
+        // A read of the archive taken before another instance's run finished
+        archivedRows.add(row(1, now.minusDays(100)));
+        tiers.refreshBoundary();
+        assertEquals(archived, getField(tiers, "archivedUpTo"));
+
+        archivedRows.add(row(2, now.minusDays(5)));
+        tiers.refreshBoundary();
+        assertEquals(now.minusDays(5), getField(tiers, "archivedUpTo"));
+    }
+
+    private static List<Long> ids(List<TransactionSummaryView> rows) {
+        return rows.stream().map(TransactionSummaryView::getId).toList();
+    }
+
+    // Only the high-risk query, ID lookups and the newest timestamp are used; both tiers answer from their rows
+    private static <T> T tier(Class<T> type, List<TransactionSummaryView> rows) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findSummariesByFraudRiskScoreGreaterThan" -> List.copyOf(rows);
+                    case "findSummaryById" -> rows.stream().filter(row -> row.getId().equals(args[0])).findFirst();
+                    case "findMaxTimestamp" -> rows.stream().map(TransactionSummaryView::getTimestamp)
+                            .max(Comparator.naturalOrder()).orElse(null);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    private static TransactionSummaryView row(long id, LocalDateTime timestamp) {
+        return (TransactionSummaryView) Proxy.newProxyInstance(TransactionSummaryView.class.getClassLoader(),
+                new Class<?>[] {TransactionSummaryView.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getTimestamp" -> timestamp;
+                    case "hashCode" -> Long.hashCode(id);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,194 @@
+package com.securebank.service.rules;
+
+import com.securebank.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+public class FraudRulePipelineTest {
+
+    private final List<String> evaluated = new CopyOnWriteArrayList<>();
+    private final MockEnvironment environment = new MockEnvironment();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Transaction tx = new Transaction();
+
+    private FraudRulePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new FraudRulePipeline();
+        setField(pipeline, "meterRegistry", meterRegistry);
+        setField(pipeline, "environment", environment);
+        setField(pipeline, "parallelMinCost", 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        invokeMethod(pipeline, "shutdown");
+    }
+
+    @Test
+    void testRulesRunCheapestFirstAndSumTheirScores() {
+        start(rule("slow", 100, 3), rule("cheap", 0, 1), rule("medium", 10, 2));
+
+        assertEquals(6, pipeline.evaluate(tx));
+        assertEquals(List.of("cheap", "medium", "slow"), evaluated);
+    }
+
+    @Test
+    void testOrderAndEnabledCanBeOverriddenPerRule() {
+        environment.setProperty("fraud.rules.slow.order", "-1");
+        environment.setProperty("fraud.rules.medium.enabled", "false");
+        start(rule("slow", 100, 3), rule("cheap", 0, 1), rule("medium", 10, 2));
+
+        assertEquals(4, pipeline.evaluate(tx));
+        assertEquals(List.of("slow", "cheap"), evaluated);
+    }
+
+    @Test
+    void testShortCircuitSkipsTheRemainingRules() {
+        setField(pipeline, "shortCircuitScore", 4);
+        start(rule("first", 0, 3), rule("second", 10, 3), rule("third", 20, 3));
+
+        assertEquals(6, pipeline.evaluate(tx));
+        assertEquals(List.of("first", "second"), evaluated);
+        assertEquals(1, meterRegistry.get("fraud.pipeline.short-circuits").counter().count());
+
+        // At or below the threshold every rule runs
+        evaluated.clear();
+        setField(pipeline, "shortCircuitScore", 9);
+        assertEquals(9, pipeline.evaluate(tx));
+        assertEquals(3, evaluated.size());
+    }
+
+    @Test
+    void testExpensiveRulesRunConcurrentlyWhenParallel() {
+        setField(pipeline, "parallel", true);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        // Each expensive rule waits for the other, so this only completes if they overlap
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        FraudRule first = blockingRule("graph", 100, 3, bothStarted, threads);
+        FraudRule second = blockingRule("history", 50, 2, bothStarted, threads);
+        start(first, second, rule("cheap", 0, 1));
+
+        assertEquals(6, pipeline.evaluate(tx));
+        assertEquals(2, threads.size());
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals("cheap", evaluated.get(0));
+    }
+
+    @Test
+    void testEveryRuleIsTimedAndHitsCountOnlyAboveTheBaseScore() {
+        start(rule("quiet", 0, 1, 1), rule("suspicious", 10, 3, 1));
+
+        pipeline.evaluate(tx);
+        pipeline.evaluate(tx);
+
+        assertEquals(2, meterRegistry.get("fraud.rule.latency").tag("rule", "quiet").timer().count());
+        assertEquals(2, meterRegistry.get("fraud.rule.latency").tag("rule", "suspicious").timer().count());
+        assertEquals(0, meterRegistry.get("fraud.rule.hits").tag("rule", "quiet").counter().count());
+        assertEquals(2, meterRegistry.get("fraud.rule.hits").tag("rule", "suspicious").counter().count());
+    }
+
+    @Test
+    void testEarlierBatchItemsReachTheRules() {
+        List<Transaction> earlier = List.of(new Transaction(), new Transaction());
+        FraudRule counting = new FraudRule() {
+            @Override
+            public String name() {
+                return "batch";
+            }
+
+            @Override
+            public int evaluate(Transaction tx) {
+                return evaluate(tx, List.of());
+            }
+
+            @Override
+            public int evaluate(Transaction tx, List<Transaction> earlierItems) {
+                return earlierItems.size();
+            }
+        };
+        start(counting);
+
+        assertEquals(0, pipeline.evaluate(tx));
+        assertEquals(2, pipeline.evaluate(tx, earlier));
+    }
+
+    private void start(FraudRule... rules) {
+        setField(pipeline, "rules", List.of(rules));
+        invokeMethod(pipeline, "init");
+    }
+
+    private FraudRule rule(String name, int cost, int score) {
+        return rule(name, cost, score, 0);
+    }
+
+    private FraudRule rule(String name, int cost, int score, int baseScore) {
+        return new FraudRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int evaluate(Transaction tx) {
+                evaluated.add(name);
+                return score;
+            }
+
+            @Override
+            public int baseScore() {
+                return baseScore;
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
+
+    private FraudRule blockingRule(String name, int cost, int score, CountDownLatch bothStarted, Set<Thread> threads) {
+        return new FraudRule() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int evaluate(Transaction tx) {
+                threads.add(Thread.currentThread());
+                bothStarted.countDown();
+                try {
+                    if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Rules did not run concurrently");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                evaluated.add(name);
+                return score;
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
+}